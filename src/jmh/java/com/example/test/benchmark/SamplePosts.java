@@ -0,0 +1,59 @@
+package com.example.test.benchmark;
+
+import com.example.test.domain.Post;
+import com.example.test.domain.User;
+import java.time.LocalDateTime;
+
+/**
+ * Posts shaped like the ones the gallery serves: a short title, a paragraph of description, a few
+ * hashtags, image metadata and an owner.
+ */
+public final class SamplePosts {
+
+    private static final String[] TAGS = {"#landscape", "#portrait", "#oil", "#watercolor", "#sketch",
+            "#abstract", "#digital", "#charcoal", "#nature", "#city", "#night", "#blue"};
+
+    private SamplePosts() {
+    }
+
+    public static Post post(long id) {
+        User user = new User();
+        user.setId(id % 50 + 1);
+        user.setUsername("artist" + (id % 50 + 1));
+
+        Post post = new Post();
+        post.setId(id);
+        post.setTitle("Study no. " + id);
+        post.setDescription("Oil on canvas, painted over three weekends in the spring. The light in the "
+                + "upper left corner took most of the time; the rest came together in an afternoon.");
+        post.setHashtags(hashtags(id));
+        post.setImagePath("/uploads/" + id + "-0f6e1c52-8f4b-4a8e-9a53-52c1d1b0c0de.jpg");
+        post.setCreatedAt(LocalDateTime.of(2024, 5, 1, 12, 0).plusMinutes(id));
+        post.setUpdatedAt(post.getCreatedAt());
+        post.setVersion(3L);
+        post.setLikeCount(id * 7 % 400);
+        post.setImageWidth(1600);
+        post.setImageHeight(1200);
+        post.setImageMimeType("image/jpeg");
+        post.setImageBytes(412_337L);
+        post.setImageDominantColor("#5a6b7c");
+        post.setImagePlaceholder("data:image/jpeg;base64,/9j/4AAQSkZJRgABAQAAAQABAAD/2wBDAAgGBgcGBQgHBwcJCQgK");
+        post.setUser(user);
+        return post;
+    }
+
+    /**
+     * Three to five tags per post, in the "#tag #tag" form the clients write.
+     */
+    public static String hashtags(long id) {
+        StringBuilder tags = new StringBuilder();
+        int count = 3 + (int) (id % 3);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                tags.append(' ');
+            }
+            tags.append(TAGS[(int) ((id * 31 + i * 7) % TAGS.length)]);
+        }
+        return tags.toString();
+    }
+}
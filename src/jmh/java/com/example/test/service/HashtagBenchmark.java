@@ -0,0 +1,49 @@
+package com.example.test.service;
+
+import com.example.test.benchmark.SamplePosts;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Hashtags are stored as one "#tag #tag" string per post, and findPostsByTag matches them with
+ * findByHashtagsContaining, i.e. a substring test. This measures that test over 1000 posts, the
+ * in-memory counterpart of a tag search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HashtagBenchmark {
+
+    @Param({"#oil", "#missing"})
+    public String tag;
+
+    private List<String> hashtags;
+
+    @Setup
+    public void setUp() {
+        hashtags = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            hashtags.add(SamplePosts.hashtags(id));
+        }
+    }
+
+    @Benchmark
+    public int matchContaining() {
+        int matches = 0;
+        for (String stored : hashtags) {
+            if (stored.contains(tag)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
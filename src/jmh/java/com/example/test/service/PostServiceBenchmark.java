@@ -0,0 +1,142 @@
+package com.example.test.service;
+
+import com.example.test.benchmark.SamplePosts;
+import com.example.test.domain.Post;
+import com.example.test.dto.PostDto;
+import com.example.test.image.ImageMetadataExtractor;
+import com.example.test.image.ImageNormalizer;
+import com.example.test.image.PerceptualHasher;
+import com.example.test.storage.LocalImageStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * PostService without Spring or a database: convertToDto runs for every post of every feed page, and
+ * saveImageFile is the synchronous part of an upload (staging copy, hash, metadata, store).
+ */
+public class PostServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Conversion {
+
+        PostService postService;
+        List<Post> page;
+
+        @Setup
+        public void setUp() {
+            postService = postService(new LikeService(null, null, null, null, null, 10_000), null, null);
+            page = new ArrayList<>();
+            for (long id = 1; id <= 20; id++) {
+                page.add(SamplePosts.post(id));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Upload {
+
+        // A tmpfs, so the numbers measure the code rather than the disk. Override with JMH's
+        // -p uploadRoot=<dir> where /dev/shm doesn't exist.
+        @Param("/dev/shm")
+        public String uploadRoot;
+
+        PostService postService;
+        MockMultipartFile imageFile;
+        Path root;
+
+        @Setup
+        public void setUp() throws IOException {
+            root = Files.createTempDirectory(Paths.get(uploadRoot), "jmh-uploads");
+            LocalImageStore imageStore = new LocalImageStore(root.resolve("images"));
+            ImageNormalizer imageNormalizer = new ImageNormalizer(new SimpleMeterRegistry());
+            imageNormalizer.init();
+            postService = postService(null, imageNormalizer, imageStore);
+            ReflectionTestUtils.setField(postService, "uploadDir", root.toString());
+            postService.init();
+            imageFile = new MockMultipartFile("image", "painting.png", "image/png", samplePng());
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<PostDto> convertToDtoPage(Conversion state) {
+        List<PostDto> dtos = new ArrayList<>(state.page.size());
+        for (Post post : state.page) {
+            dtos.add(state.postService.convertToDto(post));
+        }
+        return dtos;
+    }
+
+    /**
+     * Includes deleting the stored file again, so a long run doesn't fill the tmpfs.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String saveImageFile(Upload state) throws IOException {
+        String imagePath = state.postService.saveImageFile(state.imageFile, new Post());
+        Files.delete(state.root.resolve("images").resolve(Paths.get(imagePath).getFileName()));
+        return imagePath;
+    }
+
+    private static PostService postService(LikeService likeService, ImageNormalizer imageNormalizer,
+                                           LocalImageStore imageStore) {
+        DuplicateImageIndex duplicateImageIndex = new DuplicateImageIndex(null, imageStore, new PerceptualHasher(),
+                null, "off", 6, 200);
+        return new PostService(null, null, likeService, null, null, null, imageNormalizer,
+                new ImageMetadataExtractor(), imageStore, new PerceptualHasher(), duplicateImageIndex);
+    }
+
+    /**
+     * A 1024x768 PNG with a gradient and some shapes, roughly the size of a typical upload.
+     */
+    private static byte[] samplePng() throws IOException {
+        BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(0x2b4162), 1024, 768, new Color(0xfa9f42)));
+        graphics.fillRect(0, 0, 1024, 768);
+        graphics.setColor(new Color(0x0b6e4f));
+        for (int i = 0; i < 40; i++) {
+            graphics.fillOval((i * 97) % 1000, (i * 53) % 740, 24 + i, 24 + i);
+        }
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
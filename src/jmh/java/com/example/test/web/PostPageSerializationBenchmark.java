@@ -0,0 +1,76 @@
+package com.example.test.web;
+
+import com.example.test.benchmark.SamplePosts;
+import com.example.test.cache.PostFragmentCache;
+import com.example.test.domain.Post;
+import com.example.test.dto.CustomPageDto;
+import com.example.test.dto.PostDto;
+import com.example.test.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * A feed page of 20 posts written as JSON: plain Jackson over the whole CustomPageDto, and the
+ * fragment-cache converter the application actually uses, with a warm cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PostPageSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PostPageHttpMessageConverter converter;
+    private CustomPageDto<PostDto> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same modules and date format as the mapper Spring Boot configures.
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new PostPageHttpMessageConverter(new PostFragmentCache(objectMapper, 5000), objectMapper);
+        List<PostDto> content = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            Post post = SamplePosts.post(id);
+            PostDto postDto = new PostDto(post.getId(), post.getTitle(), post.getDescription(), post.getImagePath(),
+                    post.getHashtags(), post.getCreatedAt(),
+                    new UserDto(post.getUser().getId(), post.getUser().getUsername()));
+            postDto.setUpdatedAt(post.getUpdatedAt());
+            postDto.setVersion(post.getVersion());
+            postDto.setLikeCount(post.getLikeCount());
+            postDto.setLikedByMe(id % 4 == 0);
+            postDto.setImageWidth(post.getImageWidth());
+            postDto.setImageHeight(post.getImageHeight());
+            postDto.setImageMimeType(post.getImageMimeType());
+            postDto.setImageBytes(post.getImageBytes());
+            postDto.setImageDominantColor(post.getImageDominantColor());
+            postDto.setImagePlaceholder(post.getImagePlaceholder());
+            content.add(postDto);
+        }
+        page = new CustomPageDto<>(content, 50, 0, true, false);
+        fragments();
+    }
+
+    @Benchmark
+    public byte[] jackson() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] fragments() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsBytes();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.test.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies (microseconds, from the intended send time) and outcomes of one endpoint.
+ */
+class EndpointStats {
+
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void record(long latencyNanos, int status) {
+        latencies.recordValue(Math.min(latencies.getHighestTrackableValue(),
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * A request that got no response at all (timeout, connection refused).
+     */
+    void recordFailure(long latencyNanos) {
+        latencies.recordValue(Math.min(latencies.getHighestTrackableValue(),
+                TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        failures.increment();
+    }
+
+    long count() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        long errors = failures.sum();
+        for (Map.Entry<Integer, LongAdder> status : statuses.entrySet()) {
+            if (status.getKey() >= 400) {
+                errors += status.getValue().sum();
+            }
+        }
+        return errors;
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf("%-8s %9s %9s %8s %9s %9s %9s %9s %9s  %s%n", "endpoint", "requests", "req/s", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "statuses");
+    }
+
+    void print(PrintStream out, double seconds) {
+        Map<Integer, Long> byStatus = new TreeMap<>();
+        statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+        if (failures.sum() > 0) {
+            byStatus.put(0, failures.sum());
+        }
+        out.printf("%-8s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n", name, count(), count() / seconds,
+                errors(), millis(50), millis(90), millis(99), millis(99.9), latencies.getMaxValue() / 1000.0,
+                byStatus);
+    }
+
+    /**
+     * Full percentile distribution in HdrHistogram's .hgrm format, for plotting.
+     */
+    void writeDistribution(Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private double millis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.test.loadtest;
+
+import com.example.test.generator.GeneratedDataset;
+import com.example.test.generator.SyntheticImages;
+import com.example.test.generator.ZipfSampler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Open-model load: requests start at a constant arrival rate whether or not earlier ones have
+ * finished, each on its own virtual thread, like independent users would send them. Latency is
+ * measured from the moment a request was due, so a stalled server shows up as queueing in the
+ * percentiles instead of as a lower request rate (no coordinated omission).
+ */
+class LoadDriver {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadDriver.class);
+
+    enum Endpoint { FEED, TAG, DETAIL, SIGNIN, UPLOAD }
+
+    private static final int FEED_PAGE_SIZE = 20;
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final GeneratedDataset dataset;
+    private final List<Long> postIds;
+    private final ZipfSampler tagSampler;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final List<String> tokens = new ArrayList<>();
+    private final List<byte[]> uploadImages = new ArrayList<>();
+
+    // Cumulative weights, indexed like Endpoint.values().
+    private final int[] cumulativeWeights;
+
+    LoadDriver(String baseUrl, ObjectMapper objectMapper, GeneratedDataset dataset, List<Long> postIds,
+               Map<Endpoint, Integer> mix, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.dataset = dataset;
+        this.postIds = postIds;
+        // Tag searches follow tag popularity, like the tags themselves.
+        this.tagSampler = new ZipfSampler(dataset.tags().size(), dataset.tagExponent());
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        cumulativeWeights = new int[Endpoint.values().length];
+        int total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            total += mix.getOrDefault(endpoint, 0);
+            cumulativeWeights[endpoint.ordinal()] = total;
+            stats.put(endpoint, new EndpointStats(endpoint.name().toLowerCase()));
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix needs at least one positive weight");
+        }
+    }
+
+    /**
+     * Signs in the first signedInUsers users, whose tokens authenticate feed reads and uploads, and
+     * draws the images uploads send.
+     */
+    void prepare(int signedInUsers) throws IOException, InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> pending = new ArrayList<>();
+            for (int i = 0; i < Math.min(signedInUsers, dataset.users()); i++) {
+                int user = i;
+                pending.add(executor.submit(() -> signIn(dataset.username(user))));
+            }
+            for (Future<String> token : pending) {
+                try {
+                    tokens.add(token.get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Sign-in before the load test failed", e.getCause());
+                }
+            }
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 32; i++) {
+            uploadImages.add(SyntheticImages.encode(SyntheticImages.paint(random, 1024, 768), "jpg"));
+        }
+    }
+
+    /**
+     * Runs the load for warmup + duration and returns the stats of the measured part only.
+     */
+    Map<Endpoint, EndpointStats> run(double ratePerSecond, Duration warmup, Duration duration) {
+        long interval = Math.max(1, Math.round(1_000_000_000L / ratePerSecond));
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long late = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long due = start + i * interval;
+                if (due - end >= 0) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else if (wait < -interval) {
+                    late++;
+                }
+                Endpoint endpoint = pick(ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]));
+                boolean measured = due - measureFrom >= 0;
+                executor.execute(() -> send(endpoint, due, measured));
+            }
+            // Closing the executor waits for the requests still in flight.
+        }
+        if (late > 0) {
+            logger.warn("{} requests were sent more than one interval late; the driver itself was saturated", late);
+        }
+        return stats;
+    }
+
+    private Endpoint pick(int roll) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (roll < cumulativeWeights[endpoint.ordinal()]) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void send(Endpoint endpoint, long due, boolean measured) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request(endpoint), HttpResponse.BodyHandlers.ofByteArray());
+            if (measured) {
+                endpointStats.record(System.nanoTime() - due, response.statusCode());
+            }
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (measured) {
+                endpointStats.recordFailure(System.nanoTime() - due);
+            }
+            logger.debug("{} request failed: {}", endpoint, e.toString());
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String token = tokens.isEmpty() ? null : tokens.get(random.nextInt(tokens.size()));
+        return switch (endpoint) {
+            // Half of the feed reads are anonymous, half signed in (likedByMe is resolved per user).
+            case FEED -> get("/api/posts?page=" + random.nextInt(Math.max(1, postIds.size() / FEED_PAGE_SIZE))
+                    + "&size=" + FEED_PAGE_SIZE, random.nextBoolean() ? token : null);
+            case TAG -> get("/api/posts?size=" + FEED_PAGE_SIZE + "&tag="
+                    + URLEncoder.encode(dataset.tags().get(tagSampler.next(random)), StandardCharsets.UTF_8), null);
+            case DETAIL -> get("/api/posts/" + postIds.get(random.nextInt(postIds.size())), null);
+            case SIGNIN -> signInRequest(dataset.username(random.nextInt(dataset.users())));
+            case UPLOAD -> upload(token, uploadImages.get(random.nextInt(uploadImages.size())));
+        };
+    }
+
+    private HttpRequest get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private HttpRequest signInRequest(String username) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(Map.of("username", username, "password", dataset.password()));
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private String signIn(String username) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(signInRequest(username), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Sign-in of " + username + " answered " + response.statusCode());
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.path("token").asText();
+    }
+
+    /**
+     * POST /api/posts as the multipart form the web client sends: a JSON "post" part and the image.
+     */
+    private HttpRequest upload(String token, byte[] image) throws IOException {
+        String boundary = "----loadtest" + UUID.randomUUID();
+        byte[] post = objectMapper.writeValueAsBytes(Map.of(
+                "title", "Load test upload",
+                "description", "Uploaded by the load-test driver.",
+                "hashtags", dataset.tags().get(tagSampler.next(ThreadLocalRandom.current()))));
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 1024);
+        part(body, boundary, "Content-Disposition: form-data; name=\"post\"\r\nContent-Type: application/json", post);
+        part(body, boundary, "Content-Disposition: form-data; name=\"imageFile\"; filename=\"upload.jpg\"\r\n"
+                + "Content-Type: image/jpeg", image);
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/api/posts"))
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static void part(ByteArrayOutputStream body, String boundary, String headers, byte[] content)
+            throws IOException {
+        body.write(("--" + boundary + "\r\n" + headers + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(content);
+        body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+}
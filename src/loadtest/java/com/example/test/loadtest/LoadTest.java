@@ -0,0 +1,102 @@
+package com.example.test.loadtest;
+
+import com.example.test.TestApplication;
+import com.example.test.generator.DatasetGenerator;
+import com.example.test.generator.GeneratedDataset;
+import com.example.test.loadtest.LoadDriver.Endpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Starts the application on an embedded database, fills it with DatasetGenerator, drives an
+ * open-model request mix through the real HTTP stack and security chain, and prints per-endpoint
+ * throughput and latency percentiles. Settings are the loadtest.* properties in application-loadtest.properties; run it
+ * with ./gradlew loadTest.
+ *
+ * Driver and server share the machine, so keep the rate well below what saturates the driver (it
+ * warns when requests go out late).
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Path workDir = Files.createTempDirectory("artgallery-loadtest");
+        // As an argument, so it wins over app.upload.dir in application.properties.
+        String[] arguments = Stream.concat(Stream.of("--app.upload.dir=" + workDir.resolve("uploads")),
+                Stream.of(args)).toArray(String[]::new);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TestApplication.class)
+                .profiles("loadtest")
+                .run(arguments)) {
+            run(context);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static void run(ConfigurableApplicationContext context) throws Exception {
+        Environment environment = context.getEnvironment();
+        double rate = environment.getRequiredProperty("loadtest.rate", Double.class);
+        Duration warmup = Duration.ofSeconds(environment.getRequiredProperty("loadtest.warmup-seconds", Long.class));
+        Duration duration = Duration.ofSeconds(environment.getRequiredProperty("loadtest.duration-seconds", Long.class));
+        Duration timeout = Duration.ofMillis(environment.getRequiredProperty("loadtest.timeout-ms", Long.class));
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            mix.put(endpoint, environment.getProperty("loadtest.mix." + endpoint.name().toLowerCase(), Integer.class, 0));
+        }
+
+        GeneratedDataset dataset = context.getBean(DatasetGenerator.class).generate();
+        List<Long> postIds = context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM posts", Long.class);
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String baseUrl = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port;
+        LoadDriver driver = new LoadDriver(baseUrl, context.getBean(ObjectMapper.class), dataset, postIds, mix, timeout);
+        driver.prepare(environment.getRequiredProperty("loadtest.signed-in-users", Integer.class));
+        Map<Endpoint, EndpointStats> stats = driver.run(rate, warmup, duration);
+
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(summary, true, StandardCharsets.UTF_8)) {
+            out.printf("Load test: %d users, %d posts, %.0f req/s for %d s after %d s warm-up%n", dataset.users(),
+                    dataset.posts(), rate, duration.toSeconds(), warmup.toSeconds());
+            EndpointStats.printHeader(out);
+            for (EndpointStats endpointStats : stats.values()) {
+                endpointStats.print(out, duration.toMillis() / 1000.0);
+            }
+        }
+        String report = summary.toString(StandardCharsets.UTF_8);
+        System.out.print(report);
+
+        String reportDir = environment.getProperty("loadtest.report-dir");
+        if (reportDir != null) {
+            Path dir = Files.createDirectories(Paths.get(reportDir));
+            Files.writeString(dir.resolve("summary.txt"), report);
+            for (EndpointStats endpointStats : stats.values()) {
+                endpointStats.writeDistribution(dir.resolve(endpointStats.name() + ".hgrm"));
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
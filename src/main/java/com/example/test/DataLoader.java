@@ -3,8 +3,8 @@ package com.example.test;
 import com.example.test.domain.ERole;
 import com.example.test.domain.Role;
 import com.example.test.domain.User;
-import com.example.test.repository.RoleRepository;
 import com.example.test.repository.UserRepository;
+import com.example.test.service.RoleRegistry;
 
 import java.security.SecureRandom;
 import java.util.HashSet;
@@ -23,7 +23,7 @@ public class DataLoader implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Autowired
     private UserRepository userRepository;
@@ -50,20 +50,13 @@ public class DataLoader implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        // Create Roles if they don't exist
-        if (roleRepository.findByName(ERole.ROLE_ADMIN).isEmpty()) {
-            roleRepository.save(new Role(ERole.ROLE_ADMIN));
-        }
-        if (roleRepository.findByName(ERole.ROLE_GUEST).isEmpty()) {
-            roleRepository.save(new Role(ERole.ROLE_GUEST));
-        }
+        // Roles are created by RoleRegistry at startup
 
         // Create Admin User
         if (userRepository.findByUsername(adminUsername).isEmpty()) {
             String adminPassword = generateRandomPassword(12);
             User adminUser = new User(adminUsername, passwordEncoder.encode(adminPassword));
-            Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                    .orElseThrow(() -> new RuntimeException("Error: Admin Role not found."));
+            Role adminRole = roleRegistry.get(ERole.ROLE_ADMIN);
             Set<Role> roles = new HashSet<>();
             roles.add(adminRole);
             adminUser.setRoles(roles);
@@ -81,8 +74,7 @@ public class DataLoader implements CommandLineRunner {
         if (userRepository.findByUsername(guestUsername).isEmpty()) {
             String guestPassword = generateRandomPassword(12);
             User guestUser = new User(guestUsername, passwordEncoder.encode(guestPassword));
-            Role guestRole = roleRepository.findByName(ERole.ROLE_GUEST)
-                    .orElseThrow(() -> new RuntimeException("Error: Guest Role not found."));
+            Role guestRole = roleRegistry.get(ERole.ROLE_GUEST);
             Set<Role> roles = new HashSet<>();
             roles.add(guestRole);
             guestUser.setRoles(roles);
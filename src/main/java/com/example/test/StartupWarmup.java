@@ -0,0 +1,250 @@
+package com.example.test;
+
+import com.example.test.security.jwt.JwtUtils;
+import com.example.test.security.ratelimit.RateLimitFilter;
+import com.example.test.service.UserDetailsImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays representative traffic against the running server before it reports ready, so the first
+ * real users don't pay for cold JIT, empty caches, lazy Hibernate metadata and the first BCrypt.
+ *
+ * Spring Boot only moves the readiness state to ACCEPTING_TRAFFIC after all ApplicationRunners have
+ * returned, so /actuator/health/readiness stays OUT_OF_SERVICE until this finishes or its time budget
+ * runs out. Requests go over loopback HTTP through the full filter chain (JWT filter, rate limiter,
+ * ETags) and hit PostController, AuthController and the /uploads resolver like real clients do. They
+ * carry the rate limiter's internal token, so they don't count against the loopback address or the guest.
+ */
+@Component
+public class StartupWarmup implements ApplicationRunner, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.budget-ms:20000}")
+    private long budgetMs;
+
+    @Value("${app.warmup.max-rounds:30}")
+    private int maxRounds;
+
+    @Value("${app.warmup.feed-pages:3}")
+    private int feedPages;
+
+    @Value("${app.warmup.images-per-page:20}")
+    private int imagesPerPage;
+
+    @Value("${app.initial.guest.username}")
+    private String guestUsername;
+
+    private HttpClient httpClient;
+    private String baseUrl;
+    private long deadline;
+
+    // After DataLoader, which is unordered, so the guest user exists.
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || !(applicationContext instanceof WebServerApplicationContext webContext)) {
+            return;
+        }
+        long start = System.nanoTime();
+        deadline = start + Duration.ofMillis(budgetMs).toNanos();
+        baseUrl = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + webContext.getWebServer().getPort();
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+        int rounds = 0;
+        int requests = 0;
+        try {
+            String token = warmJwt();
+            requests += warmSignin();
+            Set<String> images = new LinkedHashSet<>();
+            while (rounds < maxRounds && !expired()) {
+                requests += replayFeed(null, images);
+                if (token != null) {
+                    requests += replayFeed(token, images);
+                }
+                if (rounds == 0) {
+                    // Thumbnails only once: pulls them into the page cache / pack maps / hot tier.
+                    requests += prefetch(images);
+                }
+                rounds++;
+            }
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Warm-up stopped early: {}", e.toString());
+        }
+        logger.info("Warm-up finished: {} rounds, {} requests in {} ms{}", rounds, requests,
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), expired() ? " (budget exhausted)" : "");
+    }
+
+    /**
+     * Mints, validates and parses a token for the guest user; the token then authenticates the
+     * replayed requests.
+     */
+    private String warmJwt() {
+        UserDetailsImpl guest;
+        try {
+            guest = (UserDetailsImpl) userDetailsService.loadUserByUsername(guestUsername);
+        } catch (RuntimeException e) {
+            logger.debug("No guest user to warm up with: {}", e.getMessage());
+            return null;
+        }
+        Authentication authentication = new UsernamePasswordAuthenticationToken(guest, null, guest.getAuthorities());
+        String token = null;
+        for (int i = 0; i < 200 && !expired(); i++) {
+            token = jwtUtils.generateJwtToken(authentication);
+            if (jwtUtils.validateJwtToken(token)) {
+                jwtUtils.getUserNameFromJwtToken(token);
+            }
+        }
+        return token;
+    }
+
+    /**
+     * One failed signin for the guest user: runs the whole authentication path including a real
+     * BCrypt comparison against the stored hash, without knowing any password.
+     */
+    private int warmSignin() throws IOException {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "username", guestUsername, "password", "warm-up-" + System.nanoTime()));
+        send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                .header(RateLimitFilter.INTERNAL_HEADER, rateLimitFilter.internalToken())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        return 1;
+    }
+
+    private int replayFeed(String token, Set<String> images) throws IOException {
+        int requests = 0;
+        for (int page = 0; page < feedPages && !expired(); page++) {
+            String feedPath = "/api/posts?page=" + page;
+            HttpResponse<byte[]> response = send(get(feedPath, token));
+            requests++;
+            if (response.statusCode() != 200) {
+                break;
+            }
+            JsonNode body = objectMapper.readTree(response.body());
+            List<Long> ids = new ArrayList<>();
+            for (JsonNode post : body.path("content")) {
+                ids.add(post.path("id").asLong());
+                String imagePath = post.path("imagePath").asText(null);
+                if (imagePath != null && images.size() < feedPages * imagesPerPage) {
+                    images.add(imagePath);
+                }
+            }
+            // Revalidation, as browsers do on the next visit.
+            response.headers().firstValue("ETag").ifPresent(etag ->
+                    sendQuietly(get(feedPath, token).header("If-None-Match", etag)));
+            requests++;
+            if (page == 0) {
+                for (Long id : ids) {
+                    if (expired()) {
+                        break;
+                    }
+                    send(get("/api/posts/" + id, token));
+                    requests++;
+                }
+            }
+            if (body.path("last").asBoolean(true)) {
+                break;
+            }
+        }
+        return requests;
+    }
+
+    private int prefetch(Set<String> images) throws IOException {
+        int requests = 0;
+        for (String image : images) {
+            if (expired()) {
+                break;
+            }
+            if (image.startsWith("/")) {
+                send(get(image, null));
+                requests++;
+            }
+        }
+        return requests;
+    }
+
+    private HttpRequest.Builder get(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(RateLimitFilter.INTERNAL_HEADER, rateLimitFilter.internalToken())
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException {
+        long remaining = Math.max(1, Duration.ofNanos(deadline - System.nanoTime()).toMillis());
+        try {
+            return httpClient.send(request.timeout(Duration.ofMillis(Math.min(remaining, 5000))).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted during warm-up");
+        }
+    }
+
+    private void sendQuietly(HttpRequest.Builder request) {
+        try {
+            send(request);
+        } catch (IOException e) {
+            logger.debug("Warm-up request failed: {}", e.getMessage());
+        }
+    }
+
+    private boolean expired() {
+        return System.nanoTime() - deadline >= 0;
+    }
+}
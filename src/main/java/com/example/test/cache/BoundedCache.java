@@ -0,0 +1,127 @@
+package com.example.test.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Small in-process cache backed by a ConcurrentHashMap with a size bound and an optional time-to-live.
+ * Eviction is approximate: once the map grows past maxSize, expired entries are dropped first and
+ * then arbitrary entries until the cache is back under its bound.
+ */
+public class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    public BoundedCache(int maxSize) {
+        this(maxSize, 0L);
+    }
+
+    /**
+     * @param maxSize  maximum number of entries kept
+     * @param ttlMillis time-to-live of an entry in milliseconds, 0 to keep entries until evicted
+     */
+    public BoundedCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = map.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            map.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Entry<V> entry = map.compute(key, (k, existing) -> {
+            if (existing != null && !isExpired(existing, System.nanoTime())) {
+                return existing;
+            }
+            V loaded = loader.apply(k);
+            return loaded == null ? null : new Entry<>(loaded, System.nanoTime());
+        });
+        trimIfNeeded();
+        return entry == null ? null : entry.value;
+    }
+
+    public void put(K key, V value) {
+        map.put(key, new Entry<>(value, System.nanoTime()));
+        trimIfNeeded();
+    }
+
+    /**
+     * Stores value, or its combination with a live existing value, e.g. Math::max for a value that must
+     * never go backwards.
+     */
+    public void merge(K key, V value, BinaryOperator<V> combine) {
+        long now = System.nanoTime();
+        map.compute(key, (k, existing) -> new Entry<>(existing == null || isExpired(existing, now)
+                ? value : combine.apply(existing.value, value), now));
+        trimIfNeeded();
+    }
+
+    /**
+     * Applies action to every live value, e.g. to drop something from all cached collections.
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        long now = System.nanoTime();
+        map.values().forEach(entry -> {
+            if (!isExpired(entry, now)) {
+                action.accept(entry.value);
+            }
+        });
+    }
+
+    public void evict(K key) {
+        map.remove(key);
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAt > ttlNanos;
+    }
+
+    private void trimIfNeeded() {
+        if (map.size() <= maxSize) {
+            return;
+        }
+        long now = System.nanoTime();
+        map.entrySet().removeIf(e -> isExpired(e.getValue(), now));
+
+        // Still over the bound: drop arbitrary entries down to ~90% so we don't trim on every put.
+        int target = Math.max(1, maxSize - maxSize / 10);
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        while (map.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
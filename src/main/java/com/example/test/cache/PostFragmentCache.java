@@ -0,0 +1,55 @@
+package com.example.test.cache;
+
+import com.example.test.dto.PostDto;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches each post rendered once as UTF-8 JSON, keyed by post id and entity version.
+ *
+ * Fragments leave out the per-request fields (likeCount, likedByMe) and end with the closing brace,
+ * so writers can append those fields by dropping the last byte. See PostPageHttpMessageConverter.
+ */
+@Component
+public class PostFragmentCache {
+
+    private final ObjectWriter fragmentWriter;
+    private final BoundedCache<Long, Fragment> fragments;
+
+    @Autowired
+    public PostFragmentCache(ObjectMapper objectMapper,
+                             @Value("${app.posts.fragment-cache.max-size:5000}") int maxSize) {
+        this.fragmentWriter = objectMapper.copy()
+                .addMixIn(PostDto.class, PerRequestFieldsMixin.class)
+                .writerFor(PostDto.class);
+        this.fragments = new BoundedCache<>(maxSize);
+    }
+
+    public byte[] fragment(PostDto post) throws JsonProcessingException {
+        Fragment cached = fragments.get(post.getId());
+        if (cached != null && cached.version().equals(post.getVersion())) {
+            return cached.json();
+        }
+        byte[] json = fragmentWriter.writeValueAsBytes(post);
+        if (post.getId() != null && post.getVersion() != null) {
+            fragments.put(post.getId(), new Fragment(post.getVersion(), json));
+        }
+        return json;
+    }
+
+    public void invalidate(Long postId) {
+        fragments.evict(postId);
+    }
+
+    private record Fragment(Long version, byte[] json) {
+    }
+
+    @JsonIgnoreProperties({"likeCount", "likedByMe"})
+    private abstract static class PerRequestFieldsMixin {
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.test.config;
+
+import com.example.test.jdbc.ConcurrencyLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class DatabaseLimiterConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseLimiterConfig.class);
+
+    // Static so the post processor is registered before the DataSource bean is created.
+    @Bean
+    public static BeanPostProcessor databaseConcurrencyLimiter() {
+        return new DataSourceLimiterPostProcessor();
+    }
+
+    static class DataSourceLimiterPostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+        private Environment environment;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitingDataSource) {
+                return bean;
+            }
+            // Checked at runtime rather than with @ConditionalOnProperty so the switch also works in AOT builds.
+            boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            if (!environment.getProperty("app.db.limiter.enabled", Boolean.class, virtualThreads)) {
+                return bean;
+            }
+
+            int maxConcurrency = environment.getProperty("app.db.limiter.max-concurrency", Integer.class, 0);
+            if (maxConcurrency <= 0) {
+                maxConcurrency = dataSource instanceof HikariDataSource hikari
+                        ? hikari.getMaximumPoolSize()
+                        : environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+            }
+            long acquireTimeoutMs = environment.getProperty("app.db.limiter.acquire-timeout-ms", Long.class, 5000L);
+
+            logger.info("Limiting concurrent database access for '{}' to {} connections", beanName, maxConcurrency);
+            return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMs);
+        }
+    }
+}
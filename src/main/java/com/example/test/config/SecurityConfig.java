@@ -2,8 +2,14 @@ package com.example.test.config;
 
 import com.example.test.security.jwt.AuthEntryPointJwt;
 import com.example.test.security.jwt.AuthTokenFilter;
+import com.example.test.security.password.BoundedPasswordEncoder;
+import com.example.test.security.ratelimit.RateLimitFilter;
+import com.example.test.security.ratelimit.RateLimitPolicy;
 import com.example.test.service.UserDetailsServiceImpl;
+import com.example.test.web.AdaptiveConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -15,7 +21,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -38,10 +43,54 @@ public class SecurityConfig {
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public RateLimitFilter rateLimitFilter(
+            @Value("${app.ratelimit.enabled:true}") boolean enabled,
+            @Value("${app.ratelimit.signin.capacity:10}") long signinCapacity,
+            @Value("${app.ratelimit.signin.refill-per-minute:10}") long signinRefill,
+            @Value("${app.ratelimit.signin-username.capacity:10}") long signinUsernameCapacity,
+            @Value("${app.ratelimit.signin-username.refill-per-minute:10}") long signinUsernameRefill,
+            @Value("${app.ratelimit.signup.capacity:5}") long signupCapacity,
+            @Value("${app.ratelimit.signup.refill-per-minute:2}") long signupRefill,
+            @Value("${app.ratelimit.upload.capacity:10}") long uploadCapacity,
+            @Value("${app.ratelimit.upload.refill-per-minute:20}") long uploadRefill,
+            @Value("${app.ratelimit.write.capacity:60}") long writeCapacity,
+            @Value("${app.ratelimit.write.refill-per-minute:120}") long writeRefill,
+            @Value("${app.ratelimit.read.capacity:200}") long readCapacity,
+            @Value("${app.ratelimit.read.refill-per-minute:1200}") long readRefill,
+            @Value("${app.ratelimit.max-buckets:100000}") int maxBuckets,
+            @Value("${app.ratelimit.idle-ms:600000}") long idleMs) {
+        return new RateLimitFilter(enabled,
+                new RateLimitPolicy("signin", signinCapacity, signinRefill),
+                new RateLimitPolicy("signin-username", signinUsernameCapacity, signinUsernameRefill),
+                new RateLimitPolicy("signup", signupCapacity, signupRefill),
+                new RateLimitPolicy("upload", uploadCapacity, uploadRefill),
+                new RateLimitPolicy("write", writeCapacity, writeRefill),
+                new RateLimitPolicy("read", readCapacity, readRefill),
+                maxBuckets, idleMs);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter(
+            @Value("${app.shedding.enabled:true}") boolean enabled,
+            @Value("${app.shedding.initial-limit:20}") int initialLimit,
+            @Value("${app.shedding.min-limit:4}") int minLimit,
+            @Value("${app.shedding.max-limit:200}") int maxLimit,
+            @Value("${app.shedding.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${app.shedding.baseline-tolerance:2.0}") double baselineTolerance,
+            @Value("${app.shedding.latency-floor-ms:50}") long latencyFloorMs,
+            @Value("${app.shedding.baseline-window-ms:30000}") long baselineWindowMs,
+            @Value("${app.shedding.retry-after-seconds:1}") int retryAfterSeconds) {
+        return new AdaptiveConcurrencyLimitFilter(enabled, initialLimit, minLimit, maxLimit, backoffRatio,
+                baselineTolerance, latencyFloorMs, baselineWindowMs, retryAfterSeconds);
+    }
+
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // Re-encodes stored hashes whose BCrypt cost differs from app.security.bcrypt.strength on login.
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -50,9 +99,15 @@ public class SecurityConfig {
         return authConfig.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(
+            @Value("${app.security.bcrypt.strength:10}") int strength,
+            @Value("${app.security.hashing.threads:0}") int threads,
+            @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.hashing.timeout-ms:5000}") long timeoutMs,
+            MeterRegistry meterRegistry) {
+        int hashingThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(strength, hashingThreads, queueCapacity, timeoutMs, meterRegistry);
     }
 
     @Bean
@@ -72,7 +127,9 @@ public class SecurityConfig {
 
     @Bean
     @Order(2)
-    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter,
+                                              AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter,
+                                              DaoAuthenticationProvider authenticationProvider) throws Exception {
         // This is the main filter chain for the API and other pages.
         http.csrf(csrf -> csrf.disable())
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
@@ -80,15 +137,23 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth ->
                 auth.requestMatchers("/api/auth/**").permitAll()
                     .requestMatchers(HttpMethod.GET, "/api/posts/**").permitAll()
+                    .requestMatchers(HttpMethod.POST, "/api/posts/batch").permitAll()
                     .requestMatchers(HttpMethod.POST, "/api/posts").authenticated()
                     .requestMatchers(HttpMethod.PUT, "/api/posts/**").authenticated()
+                    .requestMatchers(HttpMethod.PATCH, "/api/posts/**").authenticated()
                     .requestMatchers(HttpMethod.DELETE, "/api/posts/**").authenticated()
                     .requestMatchers("/", "/index.html", "/login.html", "/signup.html", "/error").permitAll()
+                    // Liveness/readiness probes come from the orchestrator without credentials.
+                    .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
                     .anyRequest().authenticated()
             );
 
-        http.authenticationProvider(authenticationProvider());
+        http.authenticationProvider(authenticationProvider);
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+        // After the JWT filter so authenticated callers are limited per user rather than per address.
+        http.addFilterAfter(rateLimitFilter, AuthTokenFilter.class);
+        // Also after the JWT filter: only verified users' post writes may use the shedder's reserve.
+        http.addFilterAfter(adaptiveConcurrencyLimitFilter, RateLimitFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,65 @@
+package com.example.test.config;
+
+import com.example.test.storage.ImageStore;
+import com.example.test.storage.LocalImageStore;
+import com.example.test.storage.PackedBlobStore;
+import com.example.test.storage.PackedImageStore;
+import com.example.test.storage.S3ImageStore;
+import com.example.test.storage.TieredImageStore;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class StorageConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageConfig.class);
+
+    /**
+     * app.storage.type selects local (default), tiered (local hot tier + app.storage.cold.type cold tier)
+     * or s3. The backend is picked from the Environment at startup, not with conditional beans, so an
+     * AOT-built image can still be pointed at a different backend by configuration.
+     */
+    @Bean
+    public ImageStore imageStore(Environment environment, PackedBlobStore packedBlobStore) throws IOException {
+        String type = environment.getProperty("app.storage.type", "local");
+        LocalImageStore local = new LocalImageStore(Paths.get(environment.getRequiredProperty("app.upload.dir")));
+        ImageStore store = switch (type) {
+            case "local" -> local;
+            case "tiered" -> new TieredImageStore(local, coldStore(environment),
+                    Duration.ofDays(environment.getProperty("app.storage.tiered.cold-after-days", Long.class, 30L)));
+            case "s3" -> s3Store(environment);
+            default -> throw new IllegalStateException("Unknown app.storage.type: " + type);
+        };
+        logger.info("Image storage: {}{}", type, packedBlobStore.isEnabled() ? " (small images packed)" : "");
+        return packedBlobStore.isEnabled() ? new PackedImageStore(packedBlobStore, store) : store;
+    }
+
+    private static ImageStore coldStore(Environment environment) throws IOException {
+        String type = environment.getProperty("app.storage.cold.type", "local");
+        return switch (type) {
+            case "local" -> new LocalImageStore(Paths.get(environment.getProperty("app.storage.cold.dir",
+                    "uploads_cold")));
+            case "s3" -> s3Store(environment);
+            default -> throw new IllegalStateException("Unknown app.storage.cold.type: " + type);
+        };
+    }
+
+    private static S3ImageStore s3Store(Environment environment) {
+        return new S3ImageStore(
+                URI.create(environment.getRequiredProperty("app.storage.s3.endpoint")),
+                environment.getProperty("app.storage.s3.region", "us-east-1"),
+                environment.getRequiredProperty("app.storage.s3.bucket"),
+                environment.getProperty("app.storage.s3.prefix", ""),
+                environment.getProperty("app.storage.s3.path-style", Boolean.class, true),
+                environment.getRequiredProperty("app.storage.s3.access-key"),
+                environment.getRequiredProperty("app.storage.s3.secret-key"),
+                Duration.ofMillis(environment.getProperty("app.storage.s3.timeout-ms", Long.class, 10000L)));
+    }
+}
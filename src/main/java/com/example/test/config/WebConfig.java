@@ -1,7 +1,15 @@
 package com.example.test.config;
 
+import com.example.test.cache.PostFragmentCache;
+import com.example.test.storage.ImageStore;
+import com.example.test.web.ImageStoreResourceResolver;
+import com.example.test.web.PostPageHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -11,9 +19,27 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.upload.dir}")
     private String uploadDir;
 
+    @Autowired
+    private PostFragmentCache postFragmentCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ImageStore imageStore;
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // No resolver caching: a cached resolution would outlive the image's deletion or tier move.
         registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadDir + "/");
+                .addResourceLocations("file:" + uploadDir + "/")
+                .resourceChain(false)
+                .addResolver(new ImageStoreResourceResolver(imageStore));
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ahead of the Jackson converter so post pages are assembled from cached fragments.
+        converters.add(0, new PostPageHttpMessageConverter(postFragmentCache, objectMapper));
     }
 }
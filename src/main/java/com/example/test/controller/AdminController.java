@@ -0,0 +1,117 @@
+package com.example.test.controller;
+
+import com.example.test.dto.CacheRegionStatsDto;
+import com.example.test.dto.DuplicateClusterDto;
+import com.example.test.dto.MessageResponse;
+import com.example.test.dto.PostBatchItem;
+import com.example.test.dto.PostDto;
+import com.example.test.service.DuplicateImageIndex;
+import com.example.test.service.PostService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Moderation and operations endpoints, admins only.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminController {
+
+    // Larger distances make the index probe far more buckets per image (see DuplicateImageIndex) and
+    // start to group unrelated images anyway.
+    private static final int MAX_CLUSTER_DISTANCE = 7;
+
+    @Autowired
+    DuplicateImageIndex duplicateImageIndex;
+
+    @Autowired
+    PostService postService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    // Bounds the posts loaded for one response, like the batch lookup endpoint.
+    @Value("${app.posts.batch.max-size:100}")
+    private int maxBatchSize;
+
+    /**
+     * Groups of posts with near-duplicate images, largest group first. maxDistance defaults to the
+     * distance uploads are checked with. At most app.posts.batch.max-size posts are returned in total:
+     * clusters past that are left out and the last one included may be cut short (see its size).
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<?> duplicates(@RequestParam(required = false) Integer maxDistance,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        if (!duplicateImageIndex.isEnabled()) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: Duplicate detection is turned off!"));
+        }
+        int distance = maxDistance != null ? maxDistance
+                : Math.min(duplicateImageIndex.getMaxDistance(), MAX_CLUSTER_DISTANCE);
+        if (distance < 0 || distance > MAX_CLUSTER_DISTANCE || limit < 1) {
+            return ResponseEntity.badRequest()
+                    .body(new MessageResponse("Error: maxDistance must be 0 to " + MAX_CLUSTER_DISTANCE
+                            + " and limit positive!"));
+        }
+
+        List<List<Long>> clusters = duplicateImageIndex.clusters(distance, Math.min(limit, 500));
+        List<List<Long>> shown = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (List<Long> cluster : clusters) {
+            int remaining = maxBatchSize - ids.size();
+            if (remaining < 2) {
+                break;
+            }
+            List<Long> members = cluster.subList(0, Math.min(cluster.size(), remaining));
+            shown.add(members);
+            ids.addAll(members);
+        }
+        Map<Long, PostDto> posts = new HashMap<>();
+        for (PostBatchItem item : postService.findPostsByIds(ids)) {
+            if (item.isFound()) {
+                posts.put(item.getId(), item.getPost());
+            }
+        }
+
+        List<DuplicateClusterDto> body = new ArrayList<>(shown.size());
+        for (int i = 0; i < shown.size(); i++) {
+            List<PostDto> members = shown.get(i).stream().map(posts::get).filter(post -> post != null).toList();
+            // Posts deleted since the index was read drop out, which can leave a single post.
+            if (members.size() > 1) {
+                body.add(new DuplicateClusterDto(members, clusters.get(i).size()));
+            }
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Hit and miss counts of every Hibernate second-level cache region since startup.
+     */
+    @GetMapping("/cache-stats")
+    public ResponseEntity<List<CacheRegionStatsDto>> cacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<CacheRegionStatsDto> regions = new ArrayList<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getDomainDataRegionStatistics(region);
+            long lookups = stats.getHitCount() + stats.getMissCount();
+            regions.add(new CacheRegionStatsDto(region, stats.getHitCount(), stats.getMissCount(),
+                    stats.getPutCount(), lookups == 0 ? 0 : (double) stats.getHitCount() / lookups));
+        }
+        return ResponseEntity.ok(regions);
+    }
+}
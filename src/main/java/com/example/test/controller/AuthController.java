@@ -7,9 +7,10 @@ import com.example.test.dto.JwtResponse;
 import com.example.test.dto.LoginRequest;
 import com.example.test.dto.MessageResponse;
 import com.example.test.dto.SignupRequest;
-import com.example.test.repository.RoleRepository;
 import com.example.test.repository.UserRepository;
 import com.example.test.security.jwt.JwtUtils;
+import com.example.test.security.password.PasswordHashingUnavailableException;
+import com.example.test.service.RoleRegistry;
 import com.example.test.service.UserDetailsImpl;
 import jakarta.validation.Valid;
 import java.util.HashSet;
@@ -17,13 +18,17 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -40,7 +45,7 @@ public class AuthController {
     UserRepository userRepository;
 
     @Autowired
-    RoleRepository roleRepository;
+    RoleRegistry roleRegistry;
 
     @Autowired
     PasswordEncoder encoder;
@@ -84,21 +89,15 @@ public class AuthController {
         Set<Role> roles = new HashSet<>();
 
         if (strRoles == null) {
-            Role userRole = roleRepository.findByName(ERole.ROLE_GUEST)
-                    .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-            roles.add(userRole);
+            roles.add(roleRegistry.get(ERole.ROLE_GUEST));
         } else {
             strRoles.forEach(role -> {
                 switch (role) {
                     case "admin":
-                        Role adminRole = roleRepository.findByName(ERole.ROLE_ADMIN)
-                                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(adminRole);
+                        roles.add(roleRegistry.get(ERole.ROLE_ADMIN));
                         break;
                     default:
-                        Role userRole = roleRepository.findByName(ERole.ROLE_GUEST)
-                                .orElseThrow(() -> new RuntimeException("Error: Role is not found."));
-                        roles.add(userRole);
+                        roles.add(roleRegistry.get(ERole.ROLE_GUEST));
                 }
             });
         }
@@ -108,4 +107,21 @@ public class AuthController {
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<MessageResponse> handleHashingUnavailable(PasswordHashingUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new MessageResponse("Error: Server is busy, please try again shortly."));
+    }
+
+    // DaoAuthenticationProvider wraps failures while looking up a user (including its timing-attack
+    // hash for unknown usernames) in InternalAuthenticationServiceException.
+    @ExceptionHandler(InternalAuthenticationServiceException.class)
+    public ResponseEntity<MessageResponse> handleInternalAuthenticationError(InternalAuthenticationServiceException e) {
+        if (e.getCause() instanceof PasswordHashingUnavailableException hashingUnavailable) {
+            return handleHashingUnavailable(hashingUnavailable);
+        }
+        throw e;
+    }
 }
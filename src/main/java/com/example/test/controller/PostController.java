@@ -7,18 +7,48 @@ import org.springframework.data.domain.Pageable;
 
 import com.example.test.domain.Post; // Keep Post for internal mapping
 
+import com.example.test.dto.LikeResponse;
+
+import com.example.test.dto.MessageResponse;
+
+import com.example.test.dto.PostBatchItem;
+
+import com.example.test.dto.PostBatchRequest;
+
+import com.example.test.dto.PostBatchResponse;
+
 import com.example.test.dto.PostDto; // Import PostDto
 
+import com.example.test.dto.PostPatchRequest;
+
 import com.example.test.dto.UserDto; // Import UserDto (though not directly used as request/response here)
 
+import com.example.test.service.ContentVersionService;
+
+import com.example.test.service.DuplicateImageException;
+
+import com.example.test.service.LikeService;
+
 import com.example.test.service.PostService;
 
+import com.example.test.service.PostVersionMismatchException;
+
 import com.example.test.service.UserDetailsImpl;
 
 import jakarta.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.http.HttpHeaders;
+
+import org.springframework.http.HttpStatus;
+
+import org.springframework.http.MediaType;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,6 +61,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 
+import java.util.List;
+
 
 
 
@@ -47,14 +79,27 @@ public class PostController {
 
     private final PostService postService;
 
+    private final LikeService likeService;
+
+    private final ContentVersionService contentVersionService;
+
+    @Value("${app.posts.batch.max-size:100}")
+    private int maxBatchSize;
+
 
 
     @Autowired
 
-    public PostController(PostService postService) {
+    public PostController(PostService postService, LikeService likeService,
+
+                          ContentVersionService contentVersionService) {
 
         this.postService = postService;
 
+        this.likeService = likeService;
+
+        this.contentVersionService = contentVersionService;
+
     }
 
 
@@ -109,105 +154,131 @@ public class PostController {
 
 
 
-        @GetMapping
+    @GetMapping
 
+    public ResponseEntity<CustomPageDto<PostDto>> getAllPosts(@RequestParam(required = false) String tag, Pageable pageable,
 
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
 
-        public CustomPageDto<PostDto> getAllPosts(@RequestParam(required = false) String tag, Pageable pageable) {
+                                                              @AuthenticationPrincipal UserDetailsImpl userDetails) {
 
+        Long userId = userDetails != null ? userDetails.getId() : null;
 
+        // The tag is taken before reading so a concurrent change can only make it older than the body.
 
-            Page<PostDto> pageResult;
+        String etag = contentVersionService.feedETag(userId);
 
+        if (ContentVersionService.matches(ifNoneMatch, etag)) {
 
+            return notModified(etag);
 
-            if (tag != null && !tag.isEmpty()) {
+        }
 
 
 
-                pageResult = postService.findPostsByTag(tag, pageable);
+        Page<PostDto> pageResult;
 
+        if (tag != null && !tag.isEmpty()) {
 
+            pageResult = postService.findPostsByTag(tag, pageable);
 
-            } else {
+        } else {
 
+            pageResult = postService.findAllPosts(pageable);
 
+        }
 
-                pageResult = postService.findAllPosts(pageable);
 
 
+        likeService.applyLikedByMe(pageResult.getContent(), userId);
 
-            }
 
 
+        CustomPageDto<PostDto> body = new CustomPageDto<>(
 
-            
+            pageResult.getContent(),
 
+            pageResult.getTotalPages(),
 
+            pageResult.getNumber(),
 
-            return new CustomPageDto<>(
+            pageResult.isFirst(),
 
+            pageResult.isLast()
 
+        );
 
-                pageResult.getContent(),
+        return ResponseEntity.ok()
 
+                .eTag(etag)
 
+                .header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION)
 
-                pageResult.getTotalPages(),
+                .body(body);
 
+    }
 
 
-                pageResult.getNumber(),
 
+    @PutMapping("/{id}")
 
+    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.id)")
 
-                pageResult.isFirst(),
+    public ResponseEntity<PostDto> updatePost(@PathVariable Long id,
 
+                                          @Valid @RequestPart("post") PostDto postDto,
 
+                                          @RequestPart(value = "imageFile", required = false) MultipartFile imageFile) throws IOException {
 
-                pageResult.isLast()
+        Post postEntity = convertToEntity(postDto); // Convert DTO to entity for update
 
+        postEntity.setImagePath(postDto.getImagePath()); // Set imagePath for potential update/removal logic in service
 
+        return postService.updatePost(id, postEntity, imageFile)
 
-            );
+                .map(ResponseEntity::ok)
 
+                .orElse(ResponseEntity.notFound().build());
 
+    }
 
-        }
 
 
+    @GetMapping("/{id}")
 
-    @PutMapping("/{id}")
+    public ResponseEntity<PostDto> getPostById(@PathVariable Long id,
 
-    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.username)")
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
 
-    public ResponseEntity<PostDto> updatePost(@PathVariable Long id,
+                                               @AuthenticationPrincipal UserDetailsImpl userDetails) {
 
-                                          @Valid @RequestPart("post") PostDto postDto,
+        Long userId = userDetails != null ? userDetails.getId() : null;
 
-                                          @RequestPart(value = "imageFile", required = false) MultipartFile imageFile) throws IOException {
+        String knownEtag = contentVersionService.knownPostETag(id, userId);
 
-        Post postEntity = convertToEntity(postDto); // Convert DTO to entity for update
+        if (ContentVersionService.matches(ifNoneMatch, knownEtag)) {
 
-        postEntity.setImagePath(postDto.getImagePath()); // Set imagePath for potential update/removal logic in service
+            return notModified(knownEtag);
 
-        return postService.updatePost(id, postEntity, imageFile)
+        }
 
-                .map(ResponseEntity::ok)
+        return postService.findPostById(id)
 
-                .orElse(ResponseEntity.notFound().build());
+                .map(postDto -> {
 
-    }
+                    likeService.applyLikedByMe(List.of(postDto), userId);
 
+                    contentVersionService.recordPostVersion(id, postDto.getVersion());
 
+                    return ResponseEntity.ok()
 
-    @GetMapping("/{id}")
+                            .eTag(contentVersionService.postETag(id, postDto.getVersion(), userId))
 
-    public ResponseEntity<PostDto> getPostById(@PathVariable Long id) {
+                            .header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION)
 
-        return postService.findPostById(id)
+                            .body(postDto);
 
-                .map(ResponseEntity::ok)
+                })
 
                 .orElse(ResponseEntity.notFound().build());
 
@@ -217,7 +288,7 @@ public class PostController {
 
     @DeleteMapping("/{id}")
 
-    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.username)")
+    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.id)")
 
     public ResponseEntity<Void> deletePost(@PathVariable Long id) {
 
@@ -227,4 +298,111 @@ public class PostController {
 
     }
 
-}
+
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.id)")
+    public ResponseEntity<?> patchPost(@PathVariable Long id,
+                                       @Valid @RequestBody PostPatchRequest patch,
+                                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                       @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        return applyPatch(id, patch, null, ifMatch, userDetails);
+    }
+
+    // Multipart variant, only needed when the image is replaced as well.
+    @PatchMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or @postSecurityService.isOwner(#id, principal.id)")
+    public ResponseEntity<?> patchPostWithImage(@PathVariable Long id,
+                                                @Valid @RequestPart(value = "post", required = false) PostPatchRequest patch,
+                                                @RequestPart(value = "imageFile", required = false) MultipartFile imageFile,
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        return applyPatch(id, patch, imageFile, ifMatch, userDetails);
+    }
+
+    private ResponseEntity<?> applyPatch(Long id, PostPatchRequest patch, MultipartFile imageFile, String ifMatch,
+                                         UserDetailsImpl userDetails) throws IOException {
+        if (ifMatch == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                    .body(new MessageResponse("Error: If-Match header with the post's ETag is required!"));
+        }
+        Long expectedVersion = ContentVersionService.versionFromIfMatch(ifMatch, id);
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body(new MessageResponse("Error: If-Match does not name a version of this post!"));
+        }
+        Long userId = userDetails != null ? userDetails.getId() : null;
+        return postService.patchPost(id, patch, imageFile, expectedVersion < 0 ? null : expectedVersion)
+                .<ResponseEntity<?>>map(postDto -> ResponseEntity.ok()
+                        .eTag(contentVersionService.postETag(id, postDto.getVersion(), userId))
+                        .body(postDto))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @ExceptionHandler(DuplicateImageException.class)
+    public ResponseEntity<MessageResponse> handleDuplicateImage(DuplicateImageException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MessageResponse("Error: This image is already posted as post " + e.getExistingPostId() + "!"));
+    }
+
+    @ExceptionHandler({PostVersionMismatchException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<MessageResponse> handleVersionConflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new MessageResponse("Error: The post was modified by someone else, reload and try again!"));
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getPostsByIds(@RequestParam List<Long> ids,
+                                           @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return findPostsByIds(ids, userDetails);
+    }
+
+    // POST variant for id lists too long for a query string.
+    @PostMapping("/batch")
+    public ResponseEntity<?> getPostsByIdsBatch(@Valid @RequestBody PostBatchRequest batchRequest,
+                                                @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return findPostsByIds(batchRequest.getIds(), userDetails);
+    }
+
+    private ResponseEntity<?> findPostsByIds(List<Long> ids, UserDetailsImpl userDetails) {
+        if (ids.size() > maxBatchSize) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new MessageResponse("Error: At most " + maxBatchSize + " ids can be requested at once!"));
+        }
+        if (ids.contains(null)) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new MessageResponse("Error: Post ids must not be empty!"));
+        }
+        List<PostBatchItem> items = postService.findPostsByIds(ids);
+        likeService.applyLikedByMe(items.stream()
+                .filter(PostBatchItem::isFound)
+                .map(PostBatchItem::getPost)
+                .toList(), userDetails != null ? userDetails.getId() : null);
+        return ResponseEntity.ok(new PostBatchResponse(items));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION)
+                .build();
+    }
+
+    @PutMapping("/{id}/like")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<LikeResponse> likePost(@PathVariable Long id,
+                                                 @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return likeService.like(id, userDetails.getId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}/like")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<LikeResponse> unlikePost(@PathVariable Long id,
+                                                   @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return ResponseEntity.ok(likeService.unlike(id, userDetails.getId()));
+    }
+
+}
\ No newline at end of file
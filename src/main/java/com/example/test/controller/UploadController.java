@@ -0,0 +1,165 @@
+package com.example.test.controller;
+
+import com.example.test.domain.Post;
+import com.example.test.dto.MessageResponse;
+import com.example.test.dto.PostDto;
+import com.example.test.dto.UploadCreateRequest;
+import com.example.test.dto.UploadStatusDto;
+import com.example.test.service.DuplicateImageException;
+import com.example.test.service.PostService;
+import com.example.test.service.UploadSessionService;
+import com.example.test.service.UploadSessionService.UploadConflictException;
+import com.example.test.service.UploadSessionService.UploadSession;
+import com.example.test.service.UserDetailsImpl;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Resumable uploads for large artwork.
+ *
+ * POST /api/uploads creates a session, PATCH /api/uploads/{id} (Content-Type
+ * application/offset+octet-stream, Upload-Offset header) appends a chunk, HEAD or GET returns the
+ * current offset, and POST /api/uploads/{id}/post turns the completed upload into a post.
+ */
+@CrossOrigin(origins = "*", exposedHeaders = {UploadController.UPLOAD_OFFSET, UploadController.UPLOAD_LENGTH, "Location"})
+@RestController
+@RequestMapping("/api/uploads")
+@PreAuthorize("isAuthenticated()")
+public class UploadController {
+
+    static final String UPLOAD_OFFSET = "Upload-Offset";
+    static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+    @Autowired
+    UploadSessionService uploadSessionService;
+
+    @Autowired
+    PostService postService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@Valid @RequestBody UploadCreateRequest createRequest,
+                                          @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        UploadSession session;
+        try {
+            session = uploadSessionService.create(userDetails.getId(), createRequest.getFileName(),
+                    createRequest.getLength());
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
+        return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+                .header(UPLOAD_OFFSET, "0")
+                .header(UPLOAD_LENGTH, Long.toString(session.getLength()))
+                .body(toStatus(session));
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headUpload(@PathVariable String id,
+                                           @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return uploadSessionService.find(id, userDetails.getId())
+                .map(session -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .header(UPLOAD_OFFSET, Long.toString(session.getOffset()))
+                        .header(UPLOAD_LENGTH, Long.toString(session.getLength()))
+                        .<Void>build())
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadStatusDto> getUpload(@PathVariable String id,
+                                                     @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return uploadSessionService.find(id, userDetails.getId())
+                .map(session -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noStore())
+                        .body(toStatus(session)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping(value = "/{id}", consumes = OFFSET_OCTET_STREAM)
+    public ResponseEntity<?> appendChunk(@PathVariable String id,
+                                         @RequestHeader(UPLOAD_OFFSET) long offset,
+                                         HttpServletRequest request,
+                                         @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        UploadSession session = uploadSessionService.find(id, userDetails.getId()).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Read the servlet stream directly so the chunk is never buffered in memory as a whole.
+        try (InputStream body = request.getInputStream()) {
+            long newOffset = uploadSessionService.appendChunk(session, offset, body);
+            return ResponseEntity.noContent()
+                    .header(UPLOAD_OFFSET, Long.toString(newOffset))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .header(UPLOAD_OFFSET, Long.toString(session.getOffset()))
+                    .body(new MessageResponse("Error: " + e.getMessage()));
+        }
+    }
+
+    @PostMapping("/{id}/post")
+    public ResponseEntity<?> finalizeUpload(@PathVariable String id,
+                                            @Valid @RequestBody PostDto postDto,
+                                            @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        UploadSession session = uploadSessionService.find(id, userDetails.getId()).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Post post = new Post();
+        post.setTitle(postDto.getTitle());
+        post.setDescription(postDto.getDescription());
+        post.setHashtags(postDto.getHashtags());
+        // The session only ends once the post is saved; after a failure the client can finalize again.
+        PostDto saved = uploadSessionService.complete(session,
+                file -> postService.savePostFromUpload(post, file, session.getFileName(), userDetails));
+        return ResponseEntity.status(201).body(saved);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abortUpload(@PathVariable String id,
+                                            @AuthenticationPrincipal UserDetailsImpl userDetails) throws IOException {
+        UploadSession session = uploadSessionService.find(id, userDetails.getId()).orElse(null);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        uploadSessionService.abort(session);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(UploadConflictException.class)
+    public ResponseEntity<MessageResponse> handleConflict(UploadConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new MessageResponse("Error: " + e.getMessage()));
+    }
+
+    @ExceptionHandler(DuplicateImageException.class)
+    public ResponseEntity<MessageResponse> handleDuplicateImage(DuplicateImageException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new MessageResponse("Error: This image is already posted as post " + e.getExistingPostId() + "!"));
+    }
+
+    private UploadStatusDto toStatus(UploadSession session) {
+        return new UploadStatusDto(session.getId(), session.getOffset(), session.getLength(),
+                uploadSessionService.expiresAt(session));
+    }
+}
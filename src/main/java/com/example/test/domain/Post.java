@@ -9,14 +9,18 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 import lombok.Getter;
+import org.hibernate.annotations.DynamicUpdate;
 import lombok.Setter;
 
 @Entity
 @Table(name = "posts")
+@DynamicUpdate // UPDATE statements only list the columns that actually changed
 @Getter
 @Setter
 public class Post {
@@ -34,11 +38,48 @@ public class Post {
     @Column(nullable = true)
     private String imagePath;
 
+    // Size of the image as uploaded and as stored after normalization, to track egress savings.
+    private Long imageOriginalBytes;
+
+    private Long imageBytes;
+
+    // Computed once when the image is stored so clients can lay out and preview it before it loads.
+    private Integer imageWidth;
+
+    private Integer imageHeight;
+
+    @Column(length = 50)
+    private String imageMimeType;
+
+    @Column(length = 7)
+    private String imageDominantColor;
+
+    // BlurHash of the image
+    @Column(length = 64)
+    private String imagePlaceholder;
+
+    // 64-bit dHash of the image, for near-duplicate detection.
+    private Long imageHash;
+
+    // Set when the image was flagged as a near-duplicate of this other post's image on upload.
+    private Long duplicateOfId;
+
     @Column(length = 500)
     private String hashtags;
 
     private LocalDateTime createdAt;
 
+    private LocalDateTime updatedAt;
+
+    // Denormalized like total, maintained by LikeService's write-behind flush.
+    @Column(nullable = false)
+    private long likeCount;
+
+    // Bumped by Hibernate on every update; keys cached JSON fragments of this post.
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -46,5 +87,11 @@ public class Post {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 }
@@ -0,0 +1,16 @@
+package com.example.test.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateClusterDto {
+    private List<PostDto> posts; // oldest first
+    private int size; // posts in the cluster; posts lists fewer when the response was capped
+}
@@ -0,0 +1,16 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeResponse {
+    private Long postId;
+    private long likeCount;
+    private boolean liked;
+}
@@ -0,0 +1,16 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostBatchItem {
+    private Long id;
+    private boolean found;
+    private PostDto post; // null when found is false
+}
@@ -0,0 +1,13 @@
+package com.example.test.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PostBatchRequest {
+    @NotEmpty
+    private List<Long> ids;
+}
@@ -0,0 +1,15 @@
+package com.example.test.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostBatchResponse {
+    private List<PostBatchItem> items; // in the order the ids were requested
+}
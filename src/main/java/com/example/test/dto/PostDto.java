@@ -4,12 +4,10 @@ import java.time.LocalDateTime;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
 
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class PostDto {
     private Long id;
     private String title;
@@ -18,4 +16,26 @@ public class PostDto {
     private String hashtags;
     private LocalDateTime createdAt;
     private UserDto user; // Changed from User to UserDto
+    private LocalDateTime updatedAt;
+    private Long version;
+    private long likeCount;
+    private boolean likedByMe;
+    private Integer imageWidth;
+    private Integer imageHeight;
+    private String imageMimeType;
+    private Long imageBytes;
+    private String imageDominantColor;
+    private String imagePlaceholder;
+    private Long duplicateOfId;
+
+    public PostDto(Long id, String title, String description, String imagePath, String hashtags,
+                   LocalDateTime createdAt, UserDto user) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.imagePath = imagePath;
+        this.hashtags = hashtags;
+        this.createdAt = createdAt;
+        this.user = user;
+    }
 }
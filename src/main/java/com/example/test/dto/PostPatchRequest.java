@@ -0,0 +1,22 @@
+package com.example.test.dto;
+
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Partial update of a post. Fields left null are not changed.
+ */
+@Getter
+@Setter
+public class PostPatchRequest {
+    @Pattern(regexp = ".*\\S.*", message = "Title cannot be empty")
+    private String title;
+
+    @Size(max = 1000)
+    private String description;
+
+    @Size(max = 500)
+    private String hashtags;
+}
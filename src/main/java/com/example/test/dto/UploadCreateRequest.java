@@ -0,0 +1,16 @@
+package com.example.test.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UploadCreateRequest {
+    @NotBlank
+    private String fileName;
+
+    @Positive
+    private long length;
+}
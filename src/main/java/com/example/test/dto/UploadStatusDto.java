@@ -0,0 +1,18 @@
+package com.example.test.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadStatusDto {
+    private String id;
+    private long offset;
+    private long length;
+    private Instant expiresAt;
+}
@@ -0,0 +1,343 @@
+package com.example.test.generator;
+
+import com.example.test.domain.ERole;
+import com.example.test.image.PerceptualHasher;
+import com.example.test.service.DuplicateImageIndex;
+import com.example.test.service.RoleRegistry;
+import com.example.test.storage.ImageStore;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Fills the database with a synthetic gallery for performance work: users, and posts with
+ * Zipf-distributed tags and owners, creation times spread over several years (more recent ones more
+ * frequent) and a generated image each.
+ *
+ * Rows go in with JDBC batch inserts, one transaction per batch, bypassing JPA; images are drawn,
+ * hashed, encoded and handed to the image store on a thread pool, one batch ahead of the inserts.
+ * Runs at startup with the "generator" profile (app.generator.enabled) unless users with the
+ * configured prefix already exist; the load test calls generate() directly. Gated at runtime rather
+ * than with @Profile, which an AOT build would evaluate once at build time.
+ */
+@Component
+public class DatasetGenerator implements ApplicationRunner, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final String INSERT_POST = "INSERT INTO posts (title, description, image_path, "
+            + "image_original_bytes, image_bytes, image_width, image_height, image_mime_type, image_hash, "
+            + "hashtags, created_at, updated_at, like_count, version, user_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?)";
+
+    private static final String[] ADJECTIVES = {"Quiet", "Golden", "Broken", "Distant", "Silver", "Restless",
+            "Hidden", "Pale", "Burning", "Frozen", "Gentle", "Hollow", "Crimson", "Faded", "Endless", "Wild"};
+    private static final String[] NOUNS = {"Harbor", "Garden", "Portrait", "Morning", "Forest", "Window",
+            "River", "Study", "Horizon", "Market", "Bridge", "Orchard", "Storm", "Street", "Shore", "Field"};
+    private static final String[] WORDS = {"landscape", "portrait", "oil", "watercolor", "sketch", "abstract",
+            "digital", "charcoal", "nature", "city", "night", "blue", "acrylic", "ink", "pastel", "sea",
+            "mountain", "flower", "light", "winter", "summer", "street", "figure", "still", "life", "color",
+            "study", "texture", "dream", "gold", "red", "green", "minimal", "surreal", "urban", "forest"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ImageStore imageStore;
+
+    @Autowired
+    private DuplicateImageIndex duplicateImageIndex;
+
+    @Value("${app.generator.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.generator.users:1000}")
+    private int userCount;
+
+    @Value("${app.generator.posts:10000}")
+    private int postCount;
+
+    @Value("${app.generator.username-prefix:gen-}")
+    private String usernamePrefix;
+
+    @Value("${app.generator.password:generated-password}")
+    private String password;
+
+    @Value("${app.generator.tags:300}")
+    private int tagCount;
+
+    @Value("${app.generator.tag-exponent:1.1}")
+    private double tagExponent;
+
+    @Value("${app.generator.owner-exponent:0.8}")
+    private double ownerExponent;
+
+    @Value("${app.generator.years:3}")
+    private int years;
+
+    @Value("${app.generator.images:true}")
+    private boolean images;
+
+    @Value("${app.generator.image-min-size:256}")
+    private int imageMinSize;
+
+    @Value("${app.generator.image-max-size:1024}")
+    private int imageMaxSize;
+
+    @Value("${app.generator.png-share:0.2}")
+    private double pngShare;
+
+    @Value("${app.generator.threads:0}")
+    private int threads;
+
+    @Value("${app.generator.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.generator.seed:42}")
+    private long seed;
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    // Before StartupWarmup, so the warm-up already sees the generated data.
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE username LIKE ?",
+                Integer.class, usernamePrefix + "%");
+        if (existing != null && existing > 0) {
+            logger.info("Not generating a dataset: {} users named {}* already exist", existing, usernamePrefix);
+            return;
+        }
+        generate();
+    }
+
+    public GeneratedDataset generate() throws IOException {
+        long start = System.nanoTime();
+        List<Long> userIds = insertUsers();
+        long usersDone = System.nanoTime();
+        insertPosts(userIds);
+        if (images && duplicateImageIndex.isEnabled()) {
+            duplicateImageIndex.load();
+        }
+        logger.info("Generated {} users in {} ms and {} posts in {} ms; they sign in with app.generator.password",
+                userIds.size(), (usersDone - start) / 1_000_000, postCount,
+                (System.nanoTime() - usersDone) / 1_000_000);
+        return new GeneratedDataset(userIds.size(), postCount, usernamePrefix, password, tags(tagCount), tagExponent);
+    }
+
+    /**
+     * The tag vocabulary, most popular first: the single words, then pairs of them (numbered once
+     * those run out).
+     */
+    public static List<String> tags(int count) {
+        List<String> tags = new ArrayList<>(count);
+        for (int i = 0; tags.size() < count; i++) {
+            if (i < WORDS.length) {
+                tags.add("#" + WORDS[i]);
+            } else {
+                int pair = i - WORDS.length;
+                int round = pair / (WORDS.length * WORDS.length);
+                int first = pair / WORDS.length % WORDS.length;
+                int second = pair % WORDS.length;
+                if (first != second) {
+                    tags.add("#" + WORDS[first] + WORDS[second] + (round > 0 ? Integer.toString(round) : ""));
+                }
+            }
+        }
+        return tags;
+    }
+
+    private List<Long> insertUsers() {
+        // Hashing is deliberately slow, so every user gets the same hash.
+        String passwordHash = passwordEncoder.encode(password);
+        Long maxIdBefore = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        for (int from = 0; from < userCount; from += batchSize) {
+            int to = Math.min(userCount, from + batchSize);
+            List<Object[]> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                rows.add(new Object[]{GeneratedDataset.username(usernamePrefix, i), passwordHash});
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("INSERT INTO users (username, password) VALUES (?, ?)", rows));
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "INSERT INTO user_roles (user_id, role_id) SELECT id, ? FROM users WHERE id > ? AND username LIKE ?",
+                roleRegistry.get(ERole.ROLE_GUEST).getId(), maxIdBefore, usernamePrefix + "%"));
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE id > ? AND username LIKE ? ORDER BY id",
+                Long.class, maxIdBefore, usernamePrefix + "%");
+    }
+
+    private void insertPosts(List<Long> userIds) throws IOException {
+        if (userIds.isEmpty()) {
+            throw new IllegalStateException("Cannot generate posts without users");
+        }
+        Path stagingDir = Files.createDirectories(Paths.get(uploadDir, ".staging"));
+        Context context = new Context(userIds, tags(tagCount), new ZipfSampler(tagCount, tagExponent),
+                new ZipfSampler(userIds.size(), ownerExponent), stagingDir, LocalDateTime.now());
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        long progressStep = Math.max(batchSize, postCount / 10);
+        try (ExecutorService executor = Executors.newFixedThreadPool(poolSize)) {
+            List<Future<PostRow>> current = submit(executor, context, 0);
+            for (int from = 0; from < postCount; from += batchSize) {
+                // Draw the next batch while this one is inserted.
+                List<Future<PostRow>> next = submit(executor, context, from + batchSize);
+                List<PostRow> rows = join(current);
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(INSERT_POST, rows, rows.size(), (statement, row) -> {
+                            statement.setString(1, row.title());
+                            statement.setString(2, row.description());
+                            statement.setString(3, row.imagePath());
+                            statement.setObject(4, row.imageBytes(), Types.BIGINT);
+                            statement.setObject(5, row.imageBytes(), Types.BIGINT);
+                            statement.setObject(6, row.imageWidth(), Types.INTEGER);
+                            statement.setObject(7, row.imageHeight(), Types.INTEGER);
+                            statement.setString(8, row.imageMimeType());
+                            statement.setObject(9, row.imageHash(), Types.BIGINT);
+                            statement.setString(10, row.hashtags());
+                            statement.setTimestamp(11, Timestamp.valueOf(row.createdAt()));
+                            statement.setTimestamp(12, Timestamp.valueOf(row.updatedAt()));
+                            statement.setLong(13, row.userId());
+                        }));
+                current = next;
+                int done = Math.min(postCount, from + batchSize);
+                if (done % progressStep < batchSize && done < postCount) {
+                    logger.info("Generated {} of {} posts", done, postCount);
+                }
+            }
+        }
+    }
+
+    private List<Future<PostRow>> submit(ExecutorService executor, Context context, int from) {
+        List<Future<PostRow>> futures = new ArrayList<>();
+        for (int i = from; i < Math.min(postCount, from + batchSize); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> post(context, index)));
+        }
+        return futures;
+    }
+
+    private static List<PostRow> join(List<Future<PostRow>> futures) throws IOException {
+        List<PostRow> rows = new ArrayList<>(futures.size());
+        try {
+            for (Future<PostRow> future : futures) {
+                rows.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating posts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException("Generating a post failed", e.getCause());
+        }
+        return rows;
+    }
+
+    /**
+     * One post, drawn from its own seed so the dataset does not depend on thread scheduling.
+     */
+    private PostRow post(Context context, int index) throws IOException {
+        Random random = new Random(seed * 1_000_003L + index);
+        String title = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+                + (random.nextInt(3) == 0 ? " " + (2 + random.nextInt(40)) : "");
+        StringBuilder description = new StringBuilder();
+        // At most five sentences stay within the 1000 characters of posts.description.
+        int sentences = 1 + random.nextInt(5);
+        for (int s = 0; s < sentences; s++) {
+            description.append(sentence(random)).append(' ');
+        }
+        List<String> postTags = new ArrayList<>();
+        int tagsPerPost = 1 + random.nextInt(5);
+        for (int t = 0; t < tagsPerPost; t++) {
+            String tag = context.tags().get(context.tagSampler().next(random));
+            if (!postTags.contains(tag)) {
+                postTags.add(tag);
+            }
+        }
+        // sqrt makes recent times more likely: the gallery grew over the years.
+        long ageSeconds = (long) ((1 - Math.sqrt(random.nextDouble())) * years * 365.25 * 24 * 3600);
+        LocalDateTime createdAt = context.now().minusSeconds(ageSeconds);
+        LocalDateTime updatedAt = random.nextInt(10) == 0
+                ? createdAt.plusSeconds((long) (random.nextDouble() * ageSeconds)) : createdAt;
+        Long userId = context.userIds().get(context.ownerSampler().next(random));
+
+        if (!images) {
+            return new PostRow(title, description.toString().trim(), null, null, null, null, null, null,
+                    String.join(" ", postTags), createdAt, updatedAt, userId);
+        }
+        BufferedImage image = SyntheticImages.paintAnySize(random, imageMinSize, imageMaxSize);
+        boolean png = random.nextDouble() < pngShare;
+        String fileName = new UUID(random.nextLong(), random.nextLong()) + (png ? ".png" : ".jpg");
+        Path staged = context.stagingDir().resolve(fileName);
+        try (OutputStream out = Files.newOutputStream(staged)) {
+            SyntheticImages.write(image, png ? "png" : "jpg", out);
+        }
+        long bytes = Files.size(staged);
+        imageStore.put(fileName, staged);
+        return new PostRow(title, description.toString().trim(), "/uploads/" + fileName, bytes, image.getWidth(),
+                image.getHeight(), png ? "image/png" : "image/jpeg", PerceptualHasher.dHash(image),
+                String.join(" ", postTags), createdAt, updatedAt, userId);
+    }
+
+    private static String sentence(Random random) {
+        StringBuilder sentence = new StringBuilder();
+        int words = 4 + random.nextInt(10);
+        for (int w = 0; w < words; w++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sentence.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private record Context(List<Long> userIds, List<String> tags, ZipfSampler tagSampler, ZipfSampler ownerSampler,
+                           Path stagingDir, LocalDateTime now) {
+    }
+
+    private record PostRow(String title, String description, String imagePath, Long imageBytes, Integer imageWidth,
+                           Integer imageHeight, String imageMimeType, Long imageHash, String hashtags,
+                           LocalDateTime createdAt, LocalDateTime updatedAt, Long userId) {
+    }
+}
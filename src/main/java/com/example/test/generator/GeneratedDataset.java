@@ -0,0 +1,19 @@
+package com.example.test.generator;
+
+import java.util.List;
+
+/**
+ * What DatasetGenerator created: users named prefix + 0 .. users - 1, all with the same password, and
+ * posts tagged from tags (most popular first, Zipf-distributed with tagExponent).
+ */
+public record GeneratedDataset(int users, int posts, String usernamePrefix, String password, List<String> tags,
+                               double tagExponent) {
+
+    public String username(int i) {
+        return username(usernamePrefix, i);
+    }
+
+    static String username(String prefix, int i) {
+        return prefix + i;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.test.generator;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.random.RandomGenerator;
+import javax.imageio.ImageIO;
+
+/**
+ * Procedural stand-ins for artwork: a two-color gradient with a random composition of shapes on top.
+ * Cheap to draw, different for every seed, and far enough from each other that they are not flagged
+ * as near-duplicates.
+ */
+public final class SyntheticImages {
+
+    private static final double[][] ASPECT_RATIOS = {{1, 1}, {4, 3}, {3, 4}, {3, 2}, {2, 3}, {16, 9}};
+
+    private SyntheticImages() {
+    }
+
+    /**
+     * An image whose longer side is between minSize and maxSize, in one of the common aspect ratios.
+     */
+    public static BufferedImage paintAnySize(RandomGenerator random, int minSize, int maxSize) {
+        int longSide = minSize + random.nextInt(Math.max(1, maxSize - minSize + 1));
+        double[] ratio = ASPECT_RATIOS[random.nextInt(ASPECT_RATIOS.length)];
+        int width = ratio[0] >= ratio[1] ? longSide : (int) Math.max(1, Math.round(longSide * ratio[0] / ratio[1]));
+        int height = ratio[0] >= ratio[1] ? (int) Math.max(1, Math.round(longSide * ratio[1] / ratio[0])) : longSide;
+        return paint(random, width, height);
+    }
+
+    /**
+     * An image of exactly width x height.
+     */
+    public static BufferedImage paint(RandomGenerator random, int width, int height) {
+        // Opaque shapes on a 3-byte BGR raster: blending and the JPEG writer's color conversion cost
+        // more than everything else put together.
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setPaint(new GradientPaint(0, 0, color(random),
+                    random.nextInt(width), height, color(random)));
+            graphics.fillRect(0, 0, width, height);
+            int count = 5 + random.nextInt(25);
+            for (int i = 0; i < count; i++) {
+                graphics.setColor(color(random));
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                int w = 1 + random.nextInt(Math.max(1, width / 2));
+                int h = 1 + random.nextInt(Math.max(1, height / 2));
+                switch (random.nextInt(4)) {
+                    case 0 -> graphics.fillOval(x - w / 2, y - h / 2, w, h);
+                    case 1 -> graphics.fillRect(x - w / 2, y - h / 2, w, h);
+                    case 2 -> graphics.fillPolygon(new int[]{x, x + w, x - w / 2}, new int[]{y - h, y + h / 2, y + h}, 3);
+                    default -> graphics.drawLine(x, y, random.nextInt(width), random.nextInt(height));
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Writes the image as "jpg" or "png".
+     */
+    public static void write(BufferedImage image, String format, OutputStream out) throws IOException {
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No ImageIO writer for " + format);
+        }
+    }
+
+    public static byte[] encode(BufferedImage image, String format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(image, format, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static Color color(RandomGenerator random) {
+        return new Color(random.nextInt(0x1000000));
+    }
+}
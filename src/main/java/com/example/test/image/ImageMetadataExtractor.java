@@ -0,0 +1,274 @@
+package com.example.test.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes the per-image values the gallery needs before the image itself arrives: dimensions and
+ * MIME type from the header, and a dominant color plus a BlurHash placeholder from a heavily
+ * subsampled decode. Runs once when an image is stored; the results are persisted on the post.
+ */
+@Component
+public class ImageMetadataExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMetadataExtractor.class);
+
+    // Size of the thumbnail the placeholder and dominant color are computed from.
+    private static final int SAMPLE_SIZE = 32;
+
+    private static final int COMPONENTS_X = 4;
+    private static final int COMPONENTS_Y = 3;
+
+    private static final String BASE83 =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    // Images announcing more pixels than this in their header only get their header values.
+    @Value("${app.images.max-pixels:100000000}")
+    private long maxPixels = 100_000_000L;
+
+    /**
+     * Never throws for unreadable images; whatever could not be determined is left null.
+     */
+    public ImageMetadata extract(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".webp")) {
+            // No WebP reader in the JDK: dimensions come from the RIFF header, no placeholder.
+            return webpMetadata(file);
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return new ImageMetadata(null, null, mimeTypeFromName(name), null, null);
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                String[] mimeTypes = reader.getOriginatingProvider().getMIMETypes();
+                String mimeType = mimeTypes != null && mimeTypes.length > 0 ? mimeTypes[0] : mimeTypeFromName(name);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("No placeholder for image {}: {}x{} exceeds {} pixels", file.getFileName(), width,
+                            height, maxPixels);
+                    return new ImageMetadata(width, height, mimeType, null, null);
+                }
+
+                // Subsample while decoding so only a few thousand pixels are ever materialized. Each
+                // axis gets its own step, so panoramas still keep enough rows.
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling(width), subsampling(height), 0, 0);
+                BufferedImage sample = thumbnail(reader.read(0, param));
+
+                return new ImageMetadata(width, height, mimeType, dominantColor(sample), blurHash(sample));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not extract image metadata from {}: {}", file.getFileName(), e.getMessage());
+            return new ImageMetadata(null, null, mimeTypeFromName(name), null, null);
+        }
+    }
+
+    private static int subsampling(int length) {
+        return Math.max(1, Math.ceilDiv(length, SAMPLE_SIZE * 2));
+    }
+
+    private static BufferedImage thumbnail(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) SAMPLE_SIZE / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            // Transparent areas show the page background, which is white.
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, targetWidth, targetHeight);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Most common color after quantizing to 4 bits per channel, averaged over the pixels in that bucket.
+     */
+    static String dominantColor(BufferedImage image) {
+        Map<Integer, long[]> buckets = new HashMap<>();
+        long[] best = null;
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int rgb = image.getRGB(x, y);
+                int r = (rgb >> 16) & 0xFF;
+                int g = (rgb >> 8) & 0xFF;
+                int b = rgb & 0xFF;
+                int key = ((r >> 4) << 8) | ((g >> 4) << 4) | (b >> 4);
+                long[] bucket = buckets.computeIfAbsent(key, k -> new long[4]);
+                bucket[0]++;
+                bucket[1] += r;
+                bucket[2] += g;
+                bucket[3] += b;
+                if (best == null || bucket[0] > best[0]) {
+                    best = bucket;
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        return String.format("#%02x%02x%02x", best[1] / best[0], best[2] / best[0], best[3] / best[0]);
+    }
+
+    /**
+     * BlurHash (https://blurha.sh) of the image with 4x3 components, about 28 characters.
+     */
+    static String blurHash(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[][] factors = new double[COMPONENTS_X * COMPONENTS_Y][3];
+        for (int j = 0; j < COMPONENTS_Y; j++) {
+            for (int i = 0; i < COMPONENTS_X; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                double r = 0;
+                double g = 0;
+                double b = 0;
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        double basis = normalisation * Math.cos(Math.PI * i * x / width)
+                                * Math.cos(Math.PI * j * y / height);
+                        int rgb = image.getRGB(x, y);
+                        r += basis * srgbToLinear((rgb >> 16) & 0xFF);
+                        g += basis * srgbToLinear((rgb >> 8) & 0xFF);
+                        b += basis * srgbToLinear(rgb & 0xFF);
+                    }
+                }
+                double scale = 1.0 / (width * height);
+                factors[j * COMPONENTS_X + i] = new double[] {r * scale, g * scale, b * scale};
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        encode83(hash, (COMPONENTS_X - 1) + (COMPONENTS_Y - 1) * 9, 1);
+
+        double maximumValue;
+        double actualMaximum = 0;
+        for (int k = 1; k < factors.length; k++) {
+            for (double component : factors[k]) {
+                actualMaximum = Math.max(actualMaximum, Math.abs(component));
+            }
+        }
+        int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+        maximumValue = (quantisedMaximum + 1) / 166.0;
+        encode83(hash, quantisedMaximum, 1);
+
+        double[] dc = factors[0];
+        encode83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+        for (int k = 1; k < factors.length; k++) {
+            double[] ac = factors[k];
+            int value = quantiseAc(ac[0], maximumValue) * 19 * 19
+                    + quantiseAc(ac[1], maximumValue) * 19
+                    + quantiseAc(ac[2], maximumValue);
+            encode83(hash, value, 2);
+        }
+        return hash.toString();
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+        double normalised = value / maximumValue;
+        double signPow = Math.copySign(Math.pow(Math.abs(normalised), 0.5), normalised);
+        return (int) Math.max(0, Math.min(18, Math.floor(signPow * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void encode83(StringBuilder out, int value, int length) {
+        for (int i = 1; i <= length; i++) {
+            int digit = (value / (int) Math.pow(83, length - i)) % 83;
+            out.append(BASE83.charAt(digit));
+        }
+    }
+
+    private static ImageMetadata webpMetadata(Path file) {
+        Integer width = null;
+        Integer height = null;
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] header = new DataInputStream(in).readNBytes(30);
+            if (header.length == 30 && header[8] == 'W' && header[9] == 'E' && header[12] == 'V' && header[13] == 'P'
+                    && header[14] == '8') {
+                if (header[15] == 'X') {
+                    width = 1 + le24(header, 24);
+                    height = 1 + le24(header, 27);
+                } else if (header[15] == ' ') {
+                    width = (le16(header, 26) & 0x3FFF);
+                    height = (le16(header, 28) & 0x3FFF);
+                } else if (header[15] == 'L') {
+                    int bits = le16(header, 21) | (le16(header, 23) << 16);
+                    width = (bits & 0x3FFF) + 1;
+                    height = ((bits >>> 14) & 0x3FFF) + 1;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read WebP header of {}: {}", file.getFileName(), e.getMessage());
+        }
+        return new ImageMetadata(width, height, "image/webp", null, null);
+    }
+
+    private static int le16(byte[] b, int offset) {
+        return (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8);
+    }
+
+    private static int le24(byte[] b, int offset) {
+        return le16(b, offset) | ((b[offset + 2] & 0xFF) << 16);
+    }
+
+    private static String mimeTypeFromName(String name) {
+        if (name.endsWith(".png")) {
+            return "image/png";
+        }
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+            return "image/jpeg";
+        }
+        if (name.endsWith(".gif")) {
+            return "image/gif";
+        }
+        if (name.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+
+    public record ImageMetadata(Integer width, Integer height, String mimeType, String dominantColor,
+                                String placeholder) {
+    }
+}
@@ -0,0 +1,668 @@
+package com.example.test.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional normalization of stored images to cut egress.
+ *
+ * JPEGs that don't need resizing or rotating get their EXIF/XMP/IPTC/comment segments dropped without
+ * re-encoding, and PNGs that stay PNG lose their text and other ancillary chunks the same way. Images
+ * larger than maxDimension are scaled down, and photographic PNGs without transparency are re-encoded
+ * as JPEG when that comes out smaller. GIF and WebP files are stored untouched.
+ *
+ * The original upload is kept in originalsDir only when keepOriginals is set.
+ */
+@Component
+public class ImageNormalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageNormalizer.class);
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    // Ancillary PNG chunks that affect how pixels are rendered (or animate); everything else is dropped.
+    private static final Set<String> PNG_KEPT_CHUNKS = Set.of("tRNS", "gAMA", "cHRM", "sRGB", "iCCP", "sBIT",
+            "acTL", "fcTL", "fdAT");
+
+    // isPhotographic looks at about this many pixels along each axis.
+    private static final int PHOTO_SAMPLE_GRID = 64;
+
+    @Value("${app.images.normalize.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.images.normalize.max-dimension:4096}")
+    private int maxDimension;
+
+    @Value("${app.images.max-pixels:100000000}")
+    private long maxPixels;
+
+    @Value("${app.images.normalize.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${app.images.normalize.keep-originals:false}")
+    private boolean keepOriginals;
+
+    @Value("${app.images.normalize.originals-dir:uploads_originals}")
+    private String originalsDir;
+
+    private final MeterRegistry meterRegistry;
+
+    private Counter originalBytes;
+    private Counter storedBytes;
+
+    public ImageNormalizer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        originalBytes = Counter.builder("images.normalize.original.bytes")
+                .description("Bytes received for uploaded images before normalization")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        storedBytes = Counter.builder("images.normalize.stored.bytes")
+                .description("Bytes stored for uploaded images after normalization")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        if (enabled && keepOriginals) {
+            try {
+                Files.createDirectories(Paths.get(originalsDir));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create originals directory!", e);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Normalizes an image that was just written to the upload directory. The returned file may have a
+     * different extension (PNG re-encoded as JPEG); the input file is gone in that case.
+     */
+    public NormalizedImage normalize(Path file) throws IOException {
+        long before = Files.size(file);
+        Path result = file;
+        if (enabled) {
+            String name = file.getFileName().toString().toLowerCase();
+            try {
+                if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+                    result = normalizeJpeg(file);
+                } else if (name.endsWith(".png")) {
+                    result = normalizePng(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                // A file we can't parse is stored as received, same as with normalization turned off.
+                logger.warn("Could not normalize {}, storing it unchanged: {}", file.getFileName(), e.getMessage());
+                Files.deleteIfExists(siblingTemp(file));
+                result = file;
+            }
+        }
+        long after = Files.size(result);
+        originalBytes.increment(before);
+        storedBytes.increment(after);
+        if (after != before) {
+            logger.debug("Normalized {} -> {}: {} -> {} bytes", file.getFileName(), result.getFileName(), before, after);
+        }
+        return new NormalizedImage(result, before, after);
+    }
+
+    /**
+     * Deletes the kept original of a stored image, if there is one.
+     */
+    public void deleteOriginal(String storedFileName) throws IOException {
+        if (!keepOriginals) {
+            return;
+        }
+        String base = baseName(storedFileName);
+        Path dir = Paths.get(originalsDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (var originals = Files.newDirectoryStream(dir, base + ".*")) {
+            for (Path original : originals) {
+                Files.deleteIfExists(original);
+            }
+        }
+    }
+
+    // --- JPEG ---
+
+    private Path normalizeJpeg(Path file) throws IOException {
+        JpegInfo info = scanJpeg(file);
+        boolean needsResize = Math.max(info.width, info.height) > maxDimension;
+        boolean needsRotate = info.orientation > 1 && info.orientation <= 8;
+
+        if (!needsResize && !needsRotate) {
+            if (info.strippableBytes == 0) {
+                return file;
+            }
+            Path stripped = siblingTemp(file);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+                 OutputStream out = new BufferedOutputStream(Files.newOutputStream(stripped))) {
+                stripJpeg(in, out);
+            }
+            return replace(file, stripped, file, false);
+        }
+
+        // Stripping EXIF drops the orientation tag, so the pixels have to be rotated to match it.
+        BufferedImage image = decode(file);
+        image = scaleToFit(image, BufferedImage.TYPE_INT_RGB);
+        if (needsRotate) {
+            image = applyOrientation(image, info.orientation);
+        }
+        byte[] jpeg = encodeJpeg(image);
+        Path encoded = siblingTemp(file);
+        Files.write(encoded, jpeg);
+        return replace(file, encoded, file, true);
+    }
+
+    private static JpegInfo scanJpeg(Path file) throws IOException {
+        JpegInfo info = new JpegInfo();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                throw new IOException("Not a JPEG file");
+            }
+            while (true) {
+                int marker = readMarker(in);
+                if (isStandalone(marker)) {
+                    continue;
+                }
+                if (marker == 0xDA || marker == 0xD9) {
+                    break;
+                }
+                int length = in.readUnsignedShort();
+                byte[] payload = in.readNBytes(length - 2);
+                if (payload.length != length - 2) {
+                    throw new EOFException("Truncated JPEG segment");
+                }
+                if (marker == 0xE1 && startsWith(payload, "Exif\0\0")) {
+                    info.orientation = exifOrientation(payload);
+                }
+                if (isStartOfFrame(marker) && payload.length >= 5) {
+                    info.height = ((payload[1] & 0xFF) << 8) | (payload[2] & 0xFF);
+                    info.width = ((payload[3] & 0xFF) << 8) | (payload[4] & 0xFF);
+                }
+                if (!keepJpegSegment(marker, payload)) {
+                    info.strippableBytes += length + 2;
+                }
+            }
+        }
+        return info;
+    }
+
+    private static void stripJpeg(InputStream source, OutputStream out) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        out.write(0xFF);
+        out.write(in.readUnsignedShort() & 0xFF);
+        while (true) {
+            int marker = readMarker(in);
+            if (isStandalone(marker) || marker == 0xD9) {
+                out.write(0xFF);
+                out.write(marker);
+                if (marker == 0xD9) {
+                    return;
+                }
+                continue;
+            }
+            int length = in.readUnsignedShort();
+            byte[] payload = in.readNBytes(length - 2);
+            if (marker == 0xDA || keepJpegSegment(marker, payload)) {
+                out.write(0xFF);
+                out.write(marker);
+                writeShort(out, length);
+                out.write(payload);
+            }
+            if (marker == 0xDA) {
+                // Start of scan: entropy-coded data and everything after it is copied as is.
+                in.transferTo(out);
+                return;
+            }
+        }
+    }
+
+    private static int readMarker(DataInputStream in) throws IOException {
+        int b = in.readUnsignedByte();
+        if (b != 0xFF) {
+            throw new IOException("Invalid JPEG marker");
+        }
+        int marker;
+        do {
+            marker = in.readUnsignedByte();
+        } while (marker == 0xFF);
+        return marker;
+    }
+
+    private static boolean keepJpegSegment(int marker, byte[] payload) {
+        if (marker == 0xE0) {
+            return startsWith(payload, "JFIF\0");
+        }
+        if (marker == 0xE2) {
+            return startsWith(payload, "ICC_PROFILE\0");
+        }
+        if (marker == 0xEE) {
+            // Adobe segment: tells decoders how to interpret the color channels.
+            return true;
+        }
+        // Other APPn (EXIF, XMP, IPTC, ...) and comments are metadata.
+        return !(marker >= 0xE1 && marker <= 0xEF) && marker != 0xFE;
+    }
+
+    private static boolean isStandalone(int marker) {
+        return marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7);
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static int exifOrientation(byte[] payload) {
+        int tiff = 6;
+        if (payload.length < tiff + 8) {
+            return 1;
+        }
+        boolean little = payload[tiff] == 'I';
+        int ifd = tiff + readInt(payload, tiff + 4, little);
+        if (ifd < tiff || ifd + 2 > payload.length) {
+            return 1;
+        }
+        int entries = readShort(payload, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > payload.length) {
+                break;
+            }
+            if (readShort(payload, entry, little) == 0x0112) {
+                return readShort(payload, entry + 8, little);
+            }
+        }
+        return 1;
+    }
+
+    // --- PNG ---
+
+    private Path normalizePng(Path file) throws IOException {
+        PngInfo info = scanPng(file);
+        boolean needsResize = Math.max(info.width, info.height) > maxDimension && !info.animated;
+
+        byte[] png;
+        BufferedImage image = null;
+        if (needsResize) {
+            image = scaleToFit(decode(file), hasAlpha(info) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            png = out.toByteArray();
+        } else {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(Integer.MAX_VALUE, Files.size(file)));
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+                stripPng(in, out);
+            }
+            png = out.toByteArray();
+        }
+
+        if (!info.animated) {
+            // The check only needs its sample grid; the full image is decoded once it is worth encoding.
+            if (image == null ? isPhotographic(decodeSample(file)) : isPhotographic(image)) {
+                if (image == null) {
+                    image = decode(file);
+                }
+                byte[] jpeg = encodeJpeg(toRgb(image));
+                if (jpeg.length < png.length) {
+                    Path jpegFile = file.resolveSibling(baseName(file.getFileName().toString()) + ".jpg");
+                    Path encoded = siblingTemp(file);
+                    Files.write(encoded, jpeg);
+                    return replace(file, encoded, jpegFile, true);
+                }
+            }
+        }
+
+        if (!needsResize && png.length >= Files.size(file)) {
+            return file;
+        }
+        Path rewritten = siblingTemp(file);
+        Files.write(rewritten, png);
+        return replace(file, rewritten, file, needsResize);
+    }
+
+    private static PngInfo scanPng(Path file) throws IOException {
+        PngInfo info = new PngInfo();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            readPngSignature(in);
+            while (true) {
+                int length = in.readInt();
+                String type = new String(in.readNBytes(4), StandardCharsets.ISO_8859_1);
+                if (type.equals("IHDR")) {
+                    info.width = in.readInt();
+                    info.height = in.readInt();
+                    in.readUnsignedByte();
+                    info.colorType = in.readUnsignedByte();
+                    in.skipNBytes(length - 10L + 4);
+                } else {
+                    if (type.equals("tRNS")) {
+                        info.transparency = true;
+                    } else if (type.equals("acTL")) {
+                        info.animated = true;
+                    }
+                    in.skipNBytes(length + 4L);
+                }
+                if (type.equals("IEND") || type.equals("IDAT")) {
+                    break;
+                }
+            }
+        }
+        return info;
+    }
+
+    private static void stripPng(InputStream source, OutputStream out) throws IOException {
+        DataInputStream in = new DataInputStream(source);
+        readPngSignature(in);
+        out.write(PNG_SIGNATURE);
+        byte[] header = new byte[8];
+        while (true) {
+            in.readFully(header);
+            int length = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8)
+                    | (header[3] & 0xFF);
+            String type = new String(header, 4, 4, StandardCharsets.ISO_8859_1);
+            // Critical chunks have an upper-case first letter and must always be kept.
+            boolean keep = Character.isUpperCase(type.charAt(0)) || PNG_KEPT_CHUNKS.contains(type);
+            if (keep) {
+                out.write(header);
+                copy(in, out, length + 4L);
+            } else {
+                in.skipNBytes(length + 4L);
+            }
+            if (type.equals("IEND")) {
+                return;
+            }
+        }
+    }
+
+    private static void readPngSignature(DataInputStream in) throws IOException {
+        byte[] signature = in.readNBytes(PNG_SIGNATURE.length);
+        if (!Arrays.equals(signature, PNG_SIGNATURE)) {
+            throw new IOException("Not a PNG file");
+        }
+    }
+
+    private static boolean hasAlpha(PngInfo info) {
+        return info.transparency || info.colorType == 4 || info.colorType == 6;
+    }
+
+    /**
+     * Rough photo detection on a sample grid: fully opaque and many distinct colors. Screenshots, line art
+     * and anything with transparency stay PNG.
+     */
+    private static boolean isPhotographic(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int stepX = Math.max(1, width / PHOTO_SAMPLE_GRID);
+        int stepY = Math.max(1, height / PHOTO_SAMPLE_GRID);
+        boolean alpha = image.getColorModel().hasAlpha();
+        Set<Integer> colors = new HashSet<>();
+        int samples = 0;
+        for (int y = 0; y < height; y += stepY) {
+            for (int x = 0; x < width; x += stepX) {
+                int argb = image.getRGB(x, y);
+                if (alpha && (argb >>> 24) != 0xFF) {
+                    return false;
+                }
+                colors.add(argb & 0xFFFFFF);
+                samples++;
+            }
+        }
+        return samples >= 256 && colors.size() * 4 > samples;
+    }
+
+    // --- decoding, scaling and encoding ---
+
+    /**
+     * Decodes the file, subsampling while reading when it is larger than maxDimension so huge uploads
+     * are never held in memory at full resolution. The step is rounded up, so the decoded image is at
+     * most maxDimension on its longest side.
+     */
+    private BufferedImage decode(Path file) throws IOException {
+        IntBinaryOperator step = (width, height) -> Math.ceilDiv(Math.max(width, height), maxDimension);
+        return decode(file, step, step);
+    }
+
+    /**
+     * Decodes only the pixels isPhotographic samples, which gives it the same answer as the full image.
+     */
+    private BufferedImage decodeSample(Path file) throws IOException {
+        return decode(file, (width, height) -> Math.max(1, width / PHOTO_SAMPLE_GRID),
+                (width, height) -> Math.max(1, height / PHOTO_SAMPLE_GRID));
+    }
+
+    /**
+     * Decodes the file reading every stepX-th column and stepY-th row, both computed from the size in
+     * the header. Images above maxPixels are refused before any pixel data is read.
+     */
+    private BufferedImage decode(Path file, IntBinaryOperator stepX, IntBinaryOperator stepY) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader for " + file.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IOException(width + "x" + height + " exceeds " + maxPixels + " pixels");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(Math.max(1, stepX.applyAsInt(width, height)),
+                        Math.max(1, stepY.applyAsInt(width, height)), 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scaleToFit(BufferedImage image, int type) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return image.getType() == type ? image : redraw(image, width, height, type);
+        }
+        double scale = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Halve in steps while far above the target; a single bilinear pass would alias badly.
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = redraw(current, current.getWidth() / 2, current.getHeight() / 2, type);
+        }
+        return redraw(current, targetWidth, targetHeight, type);
+    }
+
+    private static BufferedImage redraw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        return redraw(image, image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Rotates/flips pixels so the image displays upright without its EXIF orientation tag.
+     */
+    private static BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int rgb = image.getRGB(x, y);
+                switch (orientation) {
+                    case 2 -> target.setRGB(w - 1 - x, y, rgb);
+                    case 3 -> target.setRGB(w - 1 - x, h - 1 - y, rgb);
+                    case 4 -> target.setRGB(x, h - 1 - y, rgb);
+                    case 5 -> target.setRGB(y, x, rgb);
+                    case 6 -> target.setRGB(h - 1 - y, x, rgb);
+                    case 7 -> target.setRGB(h - 1 - y, w - 1 - x, rgb);
+                    case 8 -> target.setRGB(y, w - 1 - x, rgb);
+                    default -> target.setRGB(x, y, rgb);
+                }
+            }
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            // Progressive scans are usually a few percent smaller and render early on slow links.
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    // --- files ---
+
+    /**
+     * Moves the normalized temp file into place as target, keeping the original upload first if it
+     * was changed lossily and originals are configured to be kept.
+     */
+    private Path replace(Path original, Path temp, Path target, boolean lossy) throws IOException {
+        if (lossy && keepOriginals) {
+            Files.move(original, Paths.get(originalsDir, original.getFileName().toString()),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } else if (!original.equals(target)) {
+            Files.delete(original);
+        }
+        return Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path siblingTemp(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = count;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Truncated PNG chunk");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write((value >>> 8) & 0xFF);
+        out.write(value & 0xFF);
+    }
+
+    private static boolean startsWith(byte[] payload, String prefix) {
+        if (payload.length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (payload[i] != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] b, int offset, boolean little) {
+        return little
+                ? (b[offset] & 0xFF) | ((b[offset + 1] & 0xFF) << 8)
+                : ((b[offset] & 0xFF) << 8) | (b[offset + 1] & 0xFF);
+    }
+
+    private static int readInt(byte[] b, int offset, boolean little) {
+        return little
+                ? readShort(b, offset, true) | (readShort(b, offset + 2, true) << 16)
+                : (readShort(b, offset, false) << 16) | readShort(b, offset + 2, false);
+    }
+
+    private static class JpegInfo {
+        int width;
+        int height;
+        int orientation = 1;
+        long strippableBytes;
+    }
+
+    private static class PngInfo {
+        int width;
+        int height;
+        int colorType;
+        boolean transparency;
+        boolean animated;
+    }
+
+    /**
+     * The stored file and its size before and after normalization.
+     */
+    public record NormalizedImage(Path file, long originalBytes, long storedBytes) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.test.image;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 64-bit difference hash (dHash) of an image: the image is reduced to a 9x8 grayscale grid and every
+ * bit records whether a cell is brighter than its right neighbour. Rescaling, recompression and
+ * small color shifts change only a few bits, so near-duplicates are images whose hashes differ in few
+ * bits (small Hamming distance).
+ */
+@Component
+public class PerceptualHasher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PerceptualHasher.class);
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+
+    // Decode at roughly this size; more pixels than that only cost time.
+    private static final int SAMPLE_SIZE = 72;
+
+    // Images announcing more pixels than this in their header are not decoded at all.
+    @Value("${app.images.max-pixels:100000000}")
+    private long maxPixels = 100_000_000L;
+
+    /**
+     * @return the hash, or null if the image cannot be decoded (e.g. WebP, which the JDK cannot read)
+     *         or has more than app.images.max-pixels pixels
+     */
+    public Long dHash(Path file) {
+        try (InputStream in = Files.newInputStream(file)) {
+            return dHash(in, file.getFileName().toString());
+        } catch (IOException e) {
+            logger.warn("Could not hash image {}: {}", file.getFileName(), e.getMessage());
+            return null;
+        }
+    }
+
+    public Long dHash(InputStream in, String name) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Not hashing image {}: {}x{} exceeds {} pixels", name, width, height, maxPixels);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling(width), subsampling(height), 0, 0);
+                return dHash(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not hash image {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hash of an image already in memory. Samples every n-th pixel like the decoder does for files,
+     * so a lossless file and the image it was written from hash the same.
+     */
+    public static long dHash(BufferedImage image) {
+        double[][] grid = grayGrid(image, subsampling(image.getWidth()), subsampling(image.getHeight()));
+        long hash = 0;
+        for (int y = 0; y < GRID_HEIGHT; y++) {
+            for (int x = 0; x < GRID_WIDTH - 1; x++) {
+                hash <<= 1;
+                if (grid[y][x] > grid[y][x + 1]) {
+                    hash |= 1;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Step along one axis. Each axis is reduced on its own: a step taken from the shorter side would
+     * leave a 5,000,000x100 image at full width.
+     */
+    private static int subsampling(int length) {
+        return Math.max(1, length / SAMPLE_SIZE);
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * Mean luma of each grid cell. Area averaging rather than interpolation, so the result does not
+     * depend on which pixels a resampler happens to pick.
+     */
+    private static double[][] grayGrid(BufferedImage image, int stepX, int stepY) {
+        // Dimensions of the sampled image, as ImageReadParam.setSourceSubsampling produces it.
+        int width = (image.getWidth() + stepX - 1) / stepX;
+        int height = (image.getHeight() + stepY - 1) / stepY;
+        double[][] sums = new double[GRID_HEIGHT][GRID_WIDTH];
+        int[][] counts = new int[GRID_HEIGHT][GRID_WIDTH];
+        for (int y = 0; y < height; y++) {
+            int cellY = Math.min(GRID_HEIGHT - 1, y * GRID_HEIGHT / height);
+            for (int x = 0; x < width; x++) {
+                int cellX = Math.min(GRID_WIDTH - 1, x * GRID_WIDTH / width);
+                int argb = image.getRGB(x * stepX, y * stepY);
+                // Transparent pixels count as the white page background.
+                double alpha = ((argb >>> 24) & 0xFF) / 255.0;
+                double luma = 0.299 * ((argb >> 16) & 0xFF) + 0.587 * ((argb >> 8) & 0xFF) + 0.114 * (argb & 0xFF);
+                sums[cellY][cellX] += alpha * luma + (1 - alpha) * 255;
+                counts[cellY][cellX]++;
+            }
+        }
+        for (int y = 0; y < GRID_HEIGHT; y++) {
+            for (int x = 0; x < GRID_WIDTH; x++) {
+                // Images smaller than the grid leave cells empty; repeating a neighbour adds no bits.
+                if (counts[y][x] > 0) {
+                    sums[y][x] /= counts[y][x];
+                } else {
+                    sums[y][x] = x > 0 ? sums[y][x - 1] : y > 0 ? sums[y - 1][x] : 0;
+                }
+            }
+        }
+        return sums;
+    }
+}
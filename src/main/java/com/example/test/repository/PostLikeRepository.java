@@ -0,0 +1,20 @@
+package com.example.test.repository;
+
+import com.example.test.domain.PostLike;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
+
+    @Query("select l.postId from PostLike l where l.userId = :userId")
+    List<Long> findPostIdsByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from PostLike l where l.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+}
@@ -1,16 +1,72 @@
 package com.example.test.repository;
 
 import com.example.test.domain.Post;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
     // Pageable을 사용하여 최신순으로 게시물을 정렬하고 페이지네이션을 적용
-    Page<Post> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    // The entity graphs load each post's author in the same query instead of one query per post.
+    @EntityGraph(attributePaths = "user")
+    Page<Post> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
 
-    Page<Post> findByHashtagsContainingOrderByCreatedAtDesc(String hashtag, Pageable pageable);
+    @EntityGraph(attributePaths = "user")
+    Page<Post> findByHashtagsContainingOrderByCreatedAtDescIdDesc(String hashtag, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    Optional<Post> findWithUserById(Long id);
+
+    // Reads posts.user_id only; used for ownership checks without loading the post.
+    @Query("select p.user.id from Post p where p.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    // Reads posts.like_count only; empty if the post does not exist.
+    @Query("select p.likeCount from Post p where p.id = :id")
+    Optional<Long> findLikeCountById(@Param("id") Long id);
+
+    @Query("select p.id from Post p where p.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Posts and their authors in one query, for batch lookups. A fetch graph rather than a join fetch,
+    // so the authors' eager roles are not loaded with one extra query per author.
+    @EntityGraph(attributePaths = "user")
+    @Query("select p from Post p where p.id in :ids")
+    List<Post> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Every post's image hash, to build the duplicate index at startup.
+    @Query("select p.id as id, p.imagePath as imagePath, p.imageHash as imageHash from Post p where p.imageHash is not null")
+    List<ImageHashView> findAllImageHashes();
+
+    // Posts with an image that has not been hashed yet, in id order from afterId.
+    @Query("select p.id as id, p.imagePath as imagePath, p.imageHash as imageHash from Post p "
+            + "where p.imagePath is not null and p.imageHash is null and p.id > :afterId order by p.id")
+    List<ImageHashView> findUnhashedImages(@Param("afterId") long afterId, Pageable pageable);
+
+    // Only if the image hasn't been replaced meanwhile; bulk updates leave the version alone.
+    @Modifying
+    @Query("update Post p set p.imageHash = :hash where p.id = :id and p.imagePath = :imagePath and p.imageHash is null")
+    int setImageHash(@Param("id") Long id, @Param("imagePath") String imagePath, @Param("hash") long hash);
+
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :id")
+    int incrementLikeCount(@Param("id") Long id, @Param("delta") long delta);
+
+    interface ImageHashView {
+        Long getId();
+
+        String getImagePath();
+
+        Long getImageHash();
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.test.repository;
+
+import com.example.test.domain.User;
+import java.util.Optional;
+
+/**
+ * Username lookups through Hibernate's natural-id API, which, unlike a derived query, is answered from
+ * the natural-id and entity caches without any SQL once a user has been loaded.
+ */
+public interface UserNaturalIdRepository {
+
+    Optional<User> findByUsername(String username);
+}
@@ -1,13 +1,10 @@
 package com.example.test.repository;
 
 import com.example.test.domain.User;
-import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
-
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
     Boolean existsByUsername(String username);
 }
@@ -41,8 +41,10 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getRequestURI();
 
-        // Bypass all GET requests to /api/posts or /api/posts/*
-        if (request.getMethod().equalsIgnoreCase("GET") && pathMatcher.match("/api/posts/**", path)) {
+        // Bypass anonymous GET requests to /api/posts or /api/posts/*. Requests carrying a token are still
+        // authenticated so the feed can report per-user state such as likedByMe.
+        if (request.getMethod().equalsIgnoreCase("GET") && pathMatcher.match("/api/posts/**", path)
+                && !StringUtils.hasText(request.getHeader("Authorization"))) {
             logger.debug("AuthTokenFilter: Bypassing filter for public GET request on path: {}", path);
             return true;
         }
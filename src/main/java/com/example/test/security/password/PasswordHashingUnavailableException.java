@@ -0,0 +1,15 @@
+package com.example.test.security.password;
+
+/**
+ * Thrown when the password hashing executor is saturated and cannot take more work.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.test.security.ratelimit;
+
+import com.example.test.service.UserDetailsImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Per-client token-bucket rate limiting for the API.
+ *
+ * Requests are classified into signin, signup, upload, write and read policies. Authenticated callers are
+ * limited per user id, anonymous ones per remote address. Buckets live in a ConcurrentHashMap bounded
+ * by maxBuckets; idle buckets are evicted periodically and, if the map is still full, on insert.
+ * Sign-ins are additionally limited per submitted username, so guessing one account's password from
+ * many addresses is throttled as well; the body is read here for that and replayed to the controller.
+ * A disabled filter passes every request through, e.g. for load tests driven from a single address.
+ * So does a loopback request carrying this instance's internal token, which is how the startup warm-up
+ * replays traffic without spending any real client's budget.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String INTERNAL_HEADER = "X-Internal-Request";
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final byte[] REJECTED_BODY = ("{\"status\":429,\"error\":\"Too Many Requests\","
+            + "\"message\":\"Rate limit exceeded, please slow down\"}").getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] TOO_LARGE_BODY = ("{\"status\":413,\"error\":\"Payload Too Large\","
+            + "\"message\":\"Sign-in request is too large\"}").getBytes(StandardCharsets.UTF_8);
+
+    // Far more than a username and password need.
+    private static final int MAX_SIGNIN_BODY = 8192;
+
+    private static final ObjectMapper SIGNIN_READER = new ObjectMapper();
+
+    private static final long CLOCK_BASE = System.nanoTime();
+
+    private final boolean enabled;
+    private final RateLimitPolicy signinPolicy;
+    private final RateLimitPolicy signinUsernamePolicy;
+    private final RateLimitPolicy signupPolicy;
+    private final RateLimitPolicy uploadPolicy;
+    private final RateLimitPolicy writePolicy;
+    private final RateLimitPolicy readPolicy;
+    private final int maxBuckets;
+    private final long idleMs;
+    // Random per process, so only code running inside the application can know it.
+    private final byte[] internalToken;
+
+    private final ConcurrentHashMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimitFilter(boolean enabled, RateLimitPolicy signinPolicy, RateLimitPolicy signinUsernamePolicy,
+                           RateLimitPolicy signupPolicy, RateLimitPolicy uploadPolicy, RateLimitPolicy writePolicy,
+                           RateLimitPolicy readPolicy, int maxBuckets, long idleMs) {
+        this.enabled = enabled;
+        this.signinPolicy = signinPolicy;
+        this.signinUsernamePolicy = signinUsernamePolicy;
+        this.signupPolicy = signupPolicy;
+        this.uploadPolicy = uploadPolicy;
+        this.writePolicy = writePolicy;
+        this.readPolicy = readPolicy;
+        this.maxBuckets = maxBuckets;
+        this.idleMs = idleMs;
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        this.internalToken = Base64.getUrlEncoder().withoutPadding().encode(random);
+    }
+
+    /**
+     * Value for INTERNAL_HEADER that exempts a request from every limit; only honoured over loopback.
+     */
+    public String internalToken() {
+        return new String(internalToken, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitPolicy policy = enabled && !isInternal(request) ? classify(request) : null;
+        if (policy == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long now = nowMs();
+        TokenBucket bucket = bucketFor(new BucketKey(policy, subject(request)), policy, now);
+        long waitMs = bucket.tryConsume(now);
+        if (waitMs == 0L && policy == signinPolicy) {
+            byte[] body = request.getInputStream().readNBytes(MAX_SIGNIN_BODY + 1);
+            if (body.length > MAX_SIGNIN_BODY) {
+                // Not worth parsing, and skipping it would let oversized bodies around the username limit.
+                reject(response, 413, TOO_LARGE_BODY);
+                return;
+            }
+            request = new CachedBodyRequest(request, body);
+            String username = submittedUsername(body);
+            if (username != null) {
+                waitMs = bucketFor(new BucketKey(signinUsernamePolicy, username), signinUsernamePolicy, now)
+                        .tryConsume(now);
+            }
+        }
+        if (waitMs == 0L) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1L, TimeUnit.MILLISECONDS.toSeconds(waitMs + 999))));
+        reject(response, 429, REJECTED_BODY);
+    }
+
+    private static void reject(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * The username of a sign-in body, case-folded like the database compares it, or null if the body is
+     * not the expected JSON; the controller rejects those anyway.
+     */
+    private static String submittedUsername(byte[] body) {
+        try {
+            JsonNode username = SIGNIN_READER.readTree(body).path("username");
+            return username.isTextual() ? username.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private RateLimitPolicy classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (!path.startsWith("/api/")) {
+            return null;
+        }
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            if (path.equals("/api/auth/signin")) {
+                return signinPolicy;
+            }
+            if (path.equals("/api/auth/signup")) {
+                return signupPolicy;
+            }
+            // Resumable uploads are charged once per session, not per chunk; finalizing one is a write.
+            if (path.equals("/api/posts") || path.equals("/api/uploads")) {
+                return uploadPolicy;
+            }
+            if (path.startsWith("/api/uploads/") && path.endsWith("/post")) {
+                return writePolicy;
+            }
+            if (path.equals("/api/posts/batch")) {
+                return readPolicy;
+            }
+        } else if (path.startsWith("/api/posts/") && path.endsWith("/like")
+                && ("PUT".equals(method) || "DELETE".equals(method))) {
+            // Every toggle changes the feed version and with it every client's feed ETag.
+            return writePolicy;
+        } else if ("PUT".equals(method) && path.startsWith("/api/posts/")) {
+            return uploadPolicy;
+        } else if ("PATCH".equals(method) && path.startsWith("/api/posts/")) {
+            // A multipart patch replaces the image and costs as much as an upload; JSON only edits fields.
+            String contentType = request.getContentType();
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")
+                    ? uploadPolicy : readPolicy;
+        } else if ("GET".equals(method)) {
+            return readPolicy;
+        }
+        return null;
+    }
+
+    private boolean isInternal(HttpServletRequest request) {
+        String token = request.getHeader(INTERNAL_HEADER);
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.US_ASCII), internalToken)) {
+            return false;
+        }
+        try {
+            // The remote address is an IP literal, so this does not resolve anything.
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static Object subject(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl user) {
+            return user.getId();
+        }
+        return request.getRemoteAddr();
+    }
+
+    private TokenBucket bucketFor(BucketKey key, RateLimitPolicy policy, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            evict(now, true);
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(policy.capacity(), policy.refillPerMinute(), now));
+    }
+
+    @Scheduled(fixedDelayString = "${app.ratelimit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        evict(nowMs(), false);
+    }
+
+    private void evict(long now, boolean force) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleMs));
+        if (force && buckets.size() >= maxBuckets) {
+            // Every bucket is active: drop arbitrary ones rather than grow without bound.
+            Iterator<BucketKey> it = buckets.keySet().iterator();
+            int target = maxBuckets - maxBuckets / 10;
+            while (buckets.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        if (before != buckets.size()) {
+            logger.debug("Evicted {} rate limit buckets", before - buckets.size());
+        }
+    }
+
+    private static long nowMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - CLOCK_BASE);
+    }
+
+    private record BucketKey(RateLimitPolicy policy, Object subject) {
+    }
+
+    /**
+     * Serves a body that has already been read from the original request.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.test.security.ratelimit;
+
+/**
+ * Bucket size and refill rate for one class of requests.
+ */
+public record RateLimitPolicy(String name, long capacity, long refillPerMinute) {
+
+    public RateLimitPolicy {
+        if (capacity <= 0 || capacity > TokenBucket.MAX_CAPACITY) {
+            throw new IllegalArgumentException("Rate limit capacity for '" + name + "' must be between 1 and "
+                    + TokenBucket.MAX_CAPACITY);
+        }
+        if (refillPerMinute < 0) {
+            throw new IllegalArgumentException("Rate limit refill for '" + name + "' must not be negative");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.test.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state lives in one AtomicLong: the upper 42 bits hold the time of
+ * the last refill in milliseconds, the lower 22 bits the available tokens in thousandths. Consuming a
+ * token is a single CAS and allocates nothing.
+ */
+final class TokenBucket {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000L;
+
+    static final long MAX_CAPACITY = TOKEN_MASK / MILLI;
+
+    private final long capacityMilli;
+    private final long refillPerMinute;
+    private final AtomicLong state;
+
+    TokenBucket(long capacity, long refillPerMinute, long nowMs) {
+        this.capacityMilli = capacity * MILLI;
+        this.refillPerMinute = refillPerMinute;
+        this.state = new AtomicLong(pack(nowMs, capacityMilli));
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 if a token was taken, otherwise the number of milliseconds until one is available
+     */
+    long tryConsume(long nowMs) {
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+
+            long elapsed = Math.max(0L, nowMs - last);
+            // refillPerMinute tokens per 60000ms == refillPerMinute / 60 thousandths per ms
+            long added = elapsed * refillPerMinute / 60L;
+            long refilled;
+            long newLast;
+            if (tokens + added >= capacityMilli) {
+                refilled = capacityMilli;
+                newLast = nowMs;
+            } else {
+                refilled = tokens + added;
+                // Only advance by the time that was actually converted into tokens, keeping the remainder.
+                newLast = refillPerMinute == 0 ? nowMs : last + added * 60L / refillPerMinute;
+            }
+
+            if (refilled < MILLI) {
+                if (refillPerMinute == 0) {
+                    return Long.MAX_VALUE;
+                }
+                return Math.max(1L, ((MILLI - refilled) * 60L + refillPerMinute - 1) / refillPerMinute);
+            }
+            if (state.compareAndSet(current, pack(newLast, refilled - MILLI))) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * True when the bucket hasn't been touched for idleMs and has refilled completely, so dropping it
+     * loses no information.
+     */
+    boolean isIdle(long nowMs, long idleMs) {
+        long last = state.get() >>> TOKEN_BITS;
+        return nowMs - last > idleMs
+                && (state.get() & TOKEN_MASK) + (nowMs - last) * refillPerMinute / 60L >= capacityMilli;
+    }
+
+    private static long pack(long timeMs, long tokensMilli) {
+        return (timeMs << TOKEN_BITS) | tokensMilli;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.test.service;
+
+import com.example.test.cache.BoundedCache;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory version counters used to build strong ETags for the feed and post endpoints, so
+ * If-None-Match can be answered before any database query runs.
+ *
+ * Every tag starts with a per-process epoch: like counts include toggles that are only buffered in
+ * memory, so tags handed out by a previous process must never match.
+ *
+ * Changes made inside a transaction are published when it commits. A tag bumped earlier could be
+ * handed out with a body read before the commit, and then match for content that has changed since.
+ */
+@Service
+public class ContentVersionService {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Bumped on every post create/update/delete and like toggle; all feed pages share it because
+    // tag filtering is a substring match and a change can show up under any tag.
+    private final AtomicLong feedVersion = new AtomicLong();
+
+    private final AtomicLong likeClock = new AtomicLong();
+
+    // Entity @Version of posts we have served or written, so post ETags can be built without a query.
+    private final BoundedCache<Long, Long> postVersions;
+
+    // Last like toggle per post and per user. Absent means unchanged since startup.
+    private final ConcurrentHashMap<Long, Long> postLikeStamps = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> userLikeStamps = new ConcurrentHashMap<>();
+
+    public ContentVersionService(@Value("${app.posts.version-cache.max-size:50000}") int versionCacheMaxSize) {
+        this.postVersions = new BoundedCache<>(versionCacheMaxSize);
+    }
+
+    public String feedETag(Long userId) {
+        return quote(epoch + "-f" + feedVersion.get() + userPart(userId));
+    }
+
+    /**
+     * ETag for a post whose version is already known, or null if the post has to be loaded first.
+     */
+    public String knownPostETag(Long postId, Long userId) {
+        Long version = postVersions.get(postId);
+        return version == null ? null : postETag(postId, version, userId);
+    }
+
+    public String postETag(Long postId, long version, Long userId) {
+        return quote(epoch + "-p" + postId + "." + version + "." + postLikeStamps.getOrDefault(postId, 0L)
+                + userPart(userId));
+    }
+
+    /**
+     * Remembers the version of a post that was read. Never moves back: a slow reader may report a
+     * version older than one written meanwhile.
+     */
+    public void recordPostVersion(Long postId, Long version) {
+        if (postId != null && version != null) {
+            postVersions.merge(postId, version, Math::max);
+        }
+    }
+
+    public void postChanged(Long postId, Long version) {
+        afterCommit(() -> {
+            feedVersion.incrementAndGet();
+            recordPostVersion(postId, version);
+        });
+    }
+
+    public void postDeleted(Long postId) {
+        afterCommit(() -> {
+            feedVersion.incrementAndGet();
+            postVersions.evict(postId);
+            postLikeStamps.remove(postId);
+        });
+    }
+
+    public void likeChanged(Long postId, Long userId) {
+        long stamp = likeClock.incrementAndGet();
+        postLikeStamps.put(postId, stamp);
+        userLikeStamps.put(userId, stamp);
+        feedVersion.incrementAndGet();
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * Strong comparison against an If-None-Match header value, which may list several tags or "*".
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the post version from an If-Match value: either a post ETag issued by postETag or a
+     * quoted version number. Returns -1 for "*", null when the value can't be understood.
+     */
+    public static Long versionFromIfMatch(String ifMatch, Long postId) {
+        if (ifMatch == null) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return -1L;
+        }
+        if (value.startsWith("W/")) {
+            return null; // weak tags are never used for If-Match
+        }
+        if (value.length() < 2 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        value = value.substring(1, value.length() - 1);
+
+        String marker = "-p" + postId + ".";
+        int start = value.indexOf(marker);
+        if (start >= 0) {
+            start += marker.length();
+            int end = value.indexOf('.', start);
+            value = end < 0 ? value.substring(start) : value.substring(start, end);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private String userPart(Long userId) {
+        return userId == null ? "" : "-u" + userId + "." + userLikeStamps.getOrDefault(userId, 0L);
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.test.service;
+
+/**
+ * Thrown when an uploaded image is a near-duplicate of an existing post's image and duplicates are
+ * configured to be rejected.
+ */
+public class DuplicateImageException extends RuntimeException {
+
+    private final Long existingPostId;
+
+    public DuplicateImageException(Long existingPostId, int distance) {
+        super("Image is a near-duplicate of post " + existingPostId + " (distance " + distance + ")");
+        this.existingPostId = existingPostId;
+    }
+
+    public Long getExistingPostId() {
+        return existingPostId;
+    }
+}
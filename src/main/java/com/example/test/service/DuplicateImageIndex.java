@@ -0,0 +1,343 @@
+package com.example.test.service;
+
+import com.example.test.image.PerceptualHasher;
+import com.example.test.repository.PostRepository;
+import com.example.test.repository.PostRepository.ImageHashView;
+import com.example.test.storage.ImageStore;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory multi-index hash over the perceptual hashes of all post images, answering "which posts
+ * have an image within Hamming distance d of this one" without scanning every hash.
+ *
+ * The 64 bits are split into four 16-bit substrings, each with its own table from substring value to
+ * entries. If two hashes differ in at most d bits, then by pigeonhole at least one of their substrings
+ * differs in at most d / 4 bits, so a query only looks at the buckets within that radius of each of
+ * its own substrings (17 per table for the default distance of 6) and checks the full distance of
+ * those few candidates. The index is rebuilt from the posts table at startup and kept in sync by
+ * PostService; posts stored before hashing existed are hashed in the background.
+ */
+@Service
+public class DuplicateImageIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateImageIndex.class);
+
+    public enum Mode { OFF, FLAG, REJECT }
+
+    private final PostRepository postRepository;
+    private final ImageStore imageStore;
+    private final PerceptualHasher perceptualHasher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Mode mode;
+    private final int maxDistance;
+    private final int backfillBatchSize;
+
+    private static final int SUBSTRINGS = 4;
+    private static final int SUBSTRING_BITS = 64 / SUBSTRINGS;
+
+    // Table i maps bits [16 * i, 16 * i + 16) of a hash to the entries with those bits.
+    private final List<Map<Integer, List<Entry>>> tables = newTables();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Last post id the backfill has looked at, so images that cannot be hashed are not retried forever.
+    private long backfillCursor;
+
+    public DuplicateImageIndex(PostRepository postRepository, ImageStore imageStore,
+                               PerceptualHasher perceptualHasher, TransactionTemplate transactionTemplate,
+                               @Value("${app.images.duplicates.mode:flag}") String mode,
+                               @Value("${app.images.duplicates.max-distance:6}") int maxDistance,
+                               @Value("${app.images.duplicates.backfill-batch-size:200}") int backfillBatchSize) {
+        this.postRepository = postRepository;
+        this.imageStore = imageStore;
+        this.perceptualHasher = perceptualHasher;
+        this.transactionTemplate = transactionTemplate;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.maxDistance = maxDistance;
+        this.backfillBatchSize = backfillBatchSize;
+    }
+
+    /**
+     * (Re)builds the index from the posts table, e.g. after posts were inserted behind PostService's back.
+     */
+    @PostConstruct
+    public void load() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        List<ImageHashView> hashes = postRepository.findAllImageHashes();
+        lock.writeLock().lock();
+        try {
+            tables.forEach(Map::clear);
+            for (ImageHashView hash : hashes) {
+                insert(tables, new Entry(hash.getId(), hash.getImageHash()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded {} image hashes into the duplicate index", hashes.size());
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Checks a new image of the given post (null while it is being created) against the index.
+     *
+     * @return the id of the closest other post within the configured distance, or null
+     * @throws DuplicateImageException in REJECT mode when there is one
+     */
+    public Long check(Long hash, Long postId) {
+        if (mode == Mode.OFF || hash == null) {
+            return null;
+        }
+        Optional<Match> nearest = findWithin(hash, maxDistance).stream()
+                .filter(match -> !match.postId().equals(postId))
+                .findFirst();
+        if (nearest.isEmpty()) {
+            return null;
+        }
+        if (mode == Mode.REJECT) {
+            throw new DuplicateImageException(nearest.get().postId(), nearest.get().distance());
+        }
+        return nearest.get().postId();
+    }
+
+    /**
+     * Posts whose image hash is within distance of hash, closest first.
+     */
+    public List<Match> findWithin(long hash, int distance) {
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Entry entry : candidates(tables, hash, distance)) {
+                int d = PerceptualHasher.distance(hash, entry.hash());
+                if (d <= distance) {
+                    matches.add(new Match(entry.postId(), d));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::postId));
+        return matches;
+    }
+
+    /**
+     * Records that a post's image hash changed from oldHash to newHash; either may be null.
+     */
+    public void update(Long postId, Long oldHash, Long newHash) {
+        if (mode == Mode.OFF || postId == null || (oldHash == null ? newHash == null : oldHash.equals(newHash))) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (oldHash != null) {
+                remove(new Entry(postId, oldHash));
+            }
+            if (newHash != null) {
+                insert(tables, new Entry(postId, newHash));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Groups of posts whose images are near-duplicates of each other, largest first. Two posts are in
+     * the same group when a chain of pairs, each within distance, connects them.
+     *
+     * Only copying the entries holds the lock; the search runs on a private copy of the tables, so
+     * uploads are not held up while a large index is clustered.
+     */
+    public List<List<Long>> clusters(int distance, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Every entry is in each table exactly once, so the first table lists them all.
+            tables.get(0).values().forEach(entries::addAll);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Map<Integer, List<Entry>>> snapshot = newTables();
+        entries.forEach(entry -> insert(snapshot, entry));
+
+        Map<Long, Long> parents = new HashMap<>();
+        for (Entry entry : entries) {
+            parents.putIfAbsent(entry.postId(), entry.postId());
+            for (Entry other : candidates(snapshot, entry.hash(), distance)) {
+                if (PerceptualHasher.distance(entry.hash(), other.hash()) <= distance) {
+                    parents.putIfAbsent(other.postId(), other.postId());
+                    union(parents, entry.postId(), other.postId());
+                }
+            }
+        }
+        Map<Long, List<Long>> groups = new LinkedHashMap<>();
+        for (Long postId : parents.keySet()) {
+            groups.computeIfAbsent(find(parents, postId), key -> new ArrayList<>()).add(postId);
+        }
+        return groups.values().stream()
+                .filter(group -> group.size() > 1)
+                .peek(group -> group.sort(Comparator.naturalOrder()))
+                .sorted(Comparator.<List<Long>>comparingInt(List::size).reversed()
+                        .thenComparing(group -> group.get(0)))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Hashes images of posts created before perceptual hashing was added, a batch per run.
+     */
+    @Scheduled(initialDelayString = "${app.images.duplicates.backfill-initial-delay-ms:30000}",
+            fixedDelayString = "${app.images.duplicates.backfill-interval-ms:60000}")
+    public void backfill() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        List<ImageHashView> missing = postRepository.findUnhashedImages(backfillCursor,
+                PageRequest.of(0, backfillBatchSize));
+        for (ImageHashView post : missing) {
+            backfillCursor = post.getId();
+            Long hash = hashStoredImage(post.getImagePath());
+            if (hash == null) {
+                continue;
+            }
+            // A bulk update: neither bumps the post's version nor races with a concurrent edit's image.
+            Integer updated = transactionTemplate.execute(status ->
+                    postRepository.setImageHash(post.getId(), post.getImagePath(), hash));
+            if (updated != null && updated > 0) {
+                update(post.getId(), null, hash);
+            }
+        }
+        if (!missing.isEmpty()) {
+            logger.info("Hashed {} existing post images for duplicate detection", missing.size());
+        }
+    }
+
+    private Long hashStoredImage(String imagePath) {
+        String fileName = Paths.get(imagePath).getFileName().toString();
+        try (InputStream in = imageStore.stream(fileName)) {
+            return perceptualHasher.dHash(in, fileName);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not read {} for hashing: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Entries whose substring in some table is within distance / 4 bits of the hash's. These include
+     * every entry within distance of the hash, plus some that the caller has to filter out.
+     */
+    private static Set<Entry> candidates(List<Map<Integer, List<Entry>>> tables, long hash, int distance) {
+        Set<Entry> candidates = new HashSet<>();
+        int radius = distance / SUBSTRINGS;
+        for (int i = 0; i < SUBSTRINGS; i++) {
+            collect(tables.get(i), substring(hash, i), radius, 0, candidates);
+        }
+        return candidates;
+    }
+
+    /**
+     * Adds the buckets of key and of every key that differs from it in at most radius bits, flipping
+     * only bits from fromBit upwards so each key is visited once.
+     */
+    private static void collect(Map<Integer, List<Entry>> table, int key, int radius, int fromBit,
+                                Set<Entry> into) {
+        List<Entry> bucket = table.get(key);
+        if (bucket != null) {
+            into.addAll(bucket);
+        }
+        if (radius == 0) {
+            return;
+        }
+        for (int bit = fromBit; bit < SUBSTRING_BITS; bit++) {
+            collect(table, key ^ (1 << bit), radius - 1, bit + 1, into);
+        }
+    }
+
+    private static int substring(long hash, int i) {
+        return (int) (hash >>> (i * SUBSTRING_BITS)) & 0xFFFF;
+    }
+
+    private static List<Map<Integer, List<Entry>>> newTables() {
+        List<Map<Integer, List<Entry>>> tables = new ArrayList<>(SUBSTRINGS);
+        for (int i = 0; i < SUBSTRINGS; i++) {
+            tables.add(new HashMap<>());
+        }
+        return tables;
+    }
+
+    private static void insert(List<Map<Integer, List<Entry>>> tables, Entry entry) {
+        for (int i = 0; i < SUBSTRINGS; i++) {
+            tables.get(i).computeIfAbsent(substring(entry.hash(), i), key -> new ArrayList<>(1)).add(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        for (int i = 0; i < SUBSTRINGS; i++) {
+            int key = substring(entry.hash(), i);
+            List<Entry> bucket = tables.get(i).get(key);
+            if (bucket != null && bucket.remove(entry) && bucket.isEmpty()) {
+                tables.get(i).remove(key);
+            }
+        }
+    }
+
+    private static Long find(Map<Long, Long> parents, Long postId) {
+        Long root = postId;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        // Path compression
+        while (!parents.get(postId).equals(root)) {
+            Long next = parents.get(postId);
+            parents.put(postId, root);
+            postId = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<Long, Long> parents, Long a, Long b) {
+        Long rootA = find(parents, a);
+        Long rootB = find(parents, b);
+        if (!rootA.equals(rootB)) {
+            parents.put(rootB, rootA);
+        }
+    }
+
+    public record Match(Long postId, int distance) {
+    }
+
+    private record Entry(Long postId, long hash) {
+    }
+}
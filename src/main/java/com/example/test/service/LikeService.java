@@ -0,0 +1,301 @@
+package com.example.test.service;
+
+import com.example.test.cache.BoundedCache;
+import com.example.test.dto.LikeResponse;
+import com.example.test.dto.PostDto;
+import com.example.test.repository.PostLikeRepository;
+import com.example.test.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Likes are toggled in memory and written to the database by a periodic flush.
+ *
+ * Each user's liked post ids are cached as a set, loaded once with a single query and kept in sync
+ * by every toggle, so feeds can answer "liked by me" without touching the database. Toggles are
+ * coalesced per (user, post) until the next flush, which applies the final state to post_likes and
+ * the accumulated deltas to Post.likeCount. Likes of posts deleted in the meantime are dropped there.
+ *
+ * Toggles a flush has taken out of the buffer stay visible in flushingLikes until its transaction has
+ * committed, so a like set loaded from the database in between still sees them.
+ */
+@Service
+public class LikeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeService.class);
+
+    // A duplicate means an earlier flush already wrote the like; keeping the existing row is all we want.
+    private static final String INSERT_LIKE = "INSERT INTO post_likes (user_id, post_id, created_at) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE user_id = user_id";
+    private static final String DELETE_LIKE = "DELETE FROM post_likes WHERE user_id = ? AND post_id = ?";
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ContentVersionService contentVersionService;
+
+    private final BoundedCache<Long, Set<Long>> likedPostsByUser;
+
+    // Latest desired state per (user, post) that has not been written yet. true = liked.
+    private final ConcurrentHashMap<LikeKey, Boolean> pendingLikes = new ConcurrentHashMap<>();
+
+    // Taken out of pendingLikes by the running flush and not committed yet.
+    private final ConcurrentHashMap<LikeKey, Boolean> flushingLikes = new ConcurrentHashMap<>();
+
+    // Like sets are loaded under the read lock; the flush moves toggles between the two maps above under
+    // the write lock, so a load never sees a toggle in neither map nor reads the database too early for it.
+    private final ReentrantReadWriteLock bufferLock = new ReentrantReadWriteLock();
+
+    // likeCount changes per post that have not been written to posts.like_count yet.
+    private final ConcurrentHashMap<Long, AtomicLong> pendingDeltas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LikeService(PostRepository postRepository,
+                       PostLikeRepository postLikeRepository,
+                       JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ContentVersionService contentVersionService,
+                       @Value("${app.likes.user-cache.max-size:10000}") int userCacheMaxSize) {
+        this.postRepository = postRepository;
+        this.postLikeRepository = postLikeRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.contentVersionService = contentVersionService;
+        this.likedPostsByUser = new BoundedCache<>(userCacheMaxSize);
+    }
+
+    public Optional<LikeResponse> like(Long postId, Long userId) {
+        Set<Long> liked = likedPosts(userId);
+        // Also tells whether the post exists.
+        Optional<Long> persistedCount = postRepository.findLikeCountById(postId);
+        if (persistedCount.isEmpty()) {
+            return Optional.empty();
+        }
+        if (liked.add(postId)) {
+            pendingLikes.put(new LikeKey(userId, postId), Boolean.TRUE);
+            pendingDeltas.computeIfAbsent(postId, id -> new AtomicLong()).incrementAndGet();
+            contentVersionService.likeChanged(postId, userId);
+        }
+        return Optional.of(new LikeResponse(postId, currentLikeCount(postId, persistedCount.get()), true));
+    }
+
+    public LikeResponse unlike(Long postId, Long userId) {
+        Set<Long> liked = likedPosts(userId);
+        if (liked.remove(postId)) {
+            pendingLikes.put(new LikeKey(userId, postId), Boolean.FALSE);
+            pendingDeltas.computeIfAbsent(postId, id -> new AtomicLong()).decrementAndGet();
+            contentVersionService.likeChanged(postId, userId);
+        }
+        return new LikeResponse(postId, currentLikeCount(postId), false);
+    }
+
+    /**
+     * Persisted count plus any toggles still waiting for the next flush.
+     */
+    public long currentLikeCount(Long postId, long persistedCount) {
+        AtomicLong delta = pendingDeltas.get(postId);
+        return Math.max(0L, persistedCount + (delta == null ? 0L : delta.get()));
+    }
+
+    private long currentLikeCount(Long postId) {
+        return currentLikeCount(postId, postRepository.findLikeCountById(postId).orElse(0L));
+    }
+
+    /**
+     * Sets likedByMe on each dto from the caller's cached like set; anonymous callers get false.
+     */
+    public void applyLikedByMe(List<PostDto> posts, Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Set<Long> liked = likedPosts(userId);
+        for (PostDto post : posts) {
+            post.setLikedByMe(liked.contains(post.getId()));
+        }
+    }
+
+    /**
+     * Removes all likes of a post that is being deleted, including buffered ones so the next flush
+     * doesn't resurrect them. Runs inside the caller's transaction; the cached like sets forget the post
+     * once it commits.
+     */
+    public void deleteLikesForPost(Long postId) {
+        pendingLikes.keySet().removeIf(key -> key.postId().equals(postId));
+        pendingDeltas.remove(postId);
+        postLikeRepository.deleteByPostId(postId);
+        Runnable forget = () -> likedPostsByUser.forEachValue(liked -> liked.remove(postId));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget.run();
+            }
+        });
+    }
+
+    private Set<Long> likedPosts(Long userId) {
+        return likedPostsByUser.computeIfAbsent(userId, id -> {
+            bufferLock.readLock().lock();
+            try {
+                Set<Long> liked = ConcurrentHashMap.newKeySet();
+                liked.addAll(postLikeRepository.findPostIdsByUserId(id));
+                // The set may have been evicted while toggles were still buffered; replay them on top,
+                // older ones first.
+                replay(flushingLikes, id, liked);
+                replay(pendingLikes, id, liked);
+                return liked;
+            } finally {
+                bufferLock.readLock().unlock();
+            }
+        });
+    }
+
+    private static void replay(Map<LikeKey, Boolean> toggles, Long userId, Set<Long> liked) {
+        toggles.forEach((key, value) -> {
+            if (key.userId().equals(userId)) {
+                if (value) {
+                    liked.add(key.postId());
+                } else {
+                    liked.remove(key.postId());
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.likes.flush-interval-ms:2000}")
+    public void flush() {
+        Map<LikeKey, Boolean> likes = new HashMap<>();
+        bufferLock.writeLock().lock();
+        try {
+            for (LikeKey key : new ArrayList<>(pendingLikes.keySet())) {
+                Boolean value = pendingLikes.remove(key);
+                if (value != null) {
+                    likes.put(key, value);
+                }
+            }
+            flushingLikes.putAll(likes);
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        pendingDeltas.forEach((postId, delta) -> {
+            long value = delta.get();
+            if (value != 0L) {
+                deltas.put(postId, value);
+            }
+        });
+        if (likes.isEmpty() && deltas.isEmpty()) {
+            return;
+        }
+
+        List<LikeKey> orphaned;
+        try {
+            orphaned = transactionTemplate.execute(status -> writeLikes(likes, deltas));
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} buffered likes, will retry: {}", likes.size(), e.getMessage());
+            bufferLock.writeLock().lock();
+            try {
+                // Newer toggles that arrived meanwhile win over the ones we failed to write.
+                likes.forEach(pendingLikes::putIfAbsent);
+                flushingLikes.keySet().removeAll(likes.keySet());
+            } finally {
+                bufferLock.writeLock().unlock();
+            }
+            return;
+        }
+
+        bufferLock.writeLock().lock();
+        try {
+            likes.forEach(flushingLikes::remove);
+        } finally {
+            bufferLock.writeLock().unlock();
+        }
+        for (LikeKey key : orphaned) {
+            Set<Long> liked = likedPostsByUser.get(key.userId());
+            if (liked != null && !pendingLikes.containsKey(key)) {
+                liked.remove(key.postId());
+            }
+        }
+
+        // Only now that the counts are committed can the pending deltas be consumed. Zeroed counters
+        // stay in the map: removing them could race with a concurrent toggle holding the same instance.
+        deltas.forEach((postId, applied) -> {
+            AtomicLong delta = pendingDeltas.get(postId);
+            if (delta != null) {
+                delta.addAndGet(-applied);
+            }
+        });
+        logger.debug("Flushed {} like changes across {} posts", likes.size(), deltas.size());
+    }
+
+    /**
+     * Applies the coalesced toggles with one batched statement per kind and the count deltas.
+     *
+     * @return likes that were not written because their post has been deleted
+     */
+    private List<LikeKey> writeLikes(Map<LikeKey, Boolean> likes, Map<Long, Long> deltas) {
+        Set<Long> likedPostIds = new HashSet<>();
+        likes.forEach((key, value) -> {
+            if (value) {
+                likedPostIds.add(key.postId());
+            }
+        });
+        Set<Long> existing = likedPostIds.isEmpty()
+                ? Set.of() : new HashSet<>(postRepository.findExistingIds(likedPostIds));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<LikeKey> orphaned = new ArrayList<>();
+        likes.forEach((key, value) -> {
+            if (!value) {
+                deletes.add(new Object[] {key.userId(), key.postId()});
+            } else if (existing.contains(key.postId())) {
+                inserts.add(new Object[] {key.userId(), key.postId(), now});
+            } else {
+                orphaned.add(key);
+            }
+        });
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LIKE, inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_LIKE, deletes);
+        }
+        deltas.forEach(postRepository::incrementLikeCount);
+        return orphaned;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private record LikeKey(Long userId, Long postId) {
+    }
+}
@@ -1,10 +1,10 @@
 package com.example.test.service;
 
-import com.example.test.domain.Post;
+import com.example.test.cache.BoundedCache;
 import com.example.test.repository.PostRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional; // Import Transactional
 
 @Service("postSecurityService")
 public class PostSecurityService {
@@ -12,12 +12,34 @@ public class PostSecurityService {
     @Autowired
     private PostRepository postRepository;
 
-    @Transactional(readOnly = true) // Add this annotation
-    public boolean isOwner(Long postId, String username) {
-        Post post = postRepository.findById(postId).orElse(null);
-        if (post == null || post.getUser() == null) {
+    // A post's owner never changes, so post id -> owner id can be cached until the post is deleted.
+    private final BoundedCache<Long, Long> ownerIds;
+
+    public PostSecurityService(@Value("${app.posts.owner-cache.max-size:10000}") int maxSize) {
+        this.ownerIds = new BoundedCache<>(maxSize);
+    }
+
+    /**
+     * Answered from the owner cache or a single select of posts.user_id, without loading the Post or
+     * its User.
+     */
+    public boolean isOwner(Long postId, Long userId) {
+        if (postId == null || userId == null) {
             return false;
         }
-        return post.getUser().getUsername().equals(username);
+        Long ownerId = ownerIds.get(postId);
+        if (ownerId == null) {
+            // Missing posts (and posts without an owner) are not cached.
+            ownerId = postRepository.findOwnerIdById(postId).orElse(null);
+            if (ownerId == null) {
+                return false;
+            }
+            ownerIds.put(postId, ownerId);
+        }
+        return ownerId.equals(userId);
+    }
+
+    public void evict(Long postId) {
+        ownerIds.evict(postId);
     }
-}
\ No newline at end of file
+}
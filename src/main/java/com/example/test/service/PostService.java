@@ -2,18 +2,31 @@ package com.example.test.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import com.example.test.cache.PostFragmentCache;
 import com.example.test.domain.Post;
 import com.example.test.domain.User;
+import com.example.test.dto.PostBatchItem;
 import com.example.test.dto.PostDto; // Import PostDto
+import com.example.test.dto.PostPatchRequest;
 import com.example.test.dto.UserDto; // Import UserDto
+import com.example.test.image.ImageMetadataExtractor;
+import com.example.test.image.ImageMetadataExtractor.ImageMetadata;
+import com.example.test.image.ImageNormalizer;
+import com.example.test.image.ImageNormalizer.NormalizedImage;
+import com.example.test.image.PerceptualHasher;
 import com.example.test.repository.PostRepository;
 import com.example.test.repository.UserRepository;
+import com.example.test.storage.ImageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 
@@ -21,7 +34,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,36 +46,66 @@ import java.util.UUID;
 @Service
 public class PostService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+
+    static final List<String> ALLOWED_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".gif", ".webp");
+
     @Value("${app.upload.dir}")
     private String uploadDir;
 
+    // Local scratch space where new images are normalized before they go to the image store.
+    private Path stagingDir;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final LikeService likeService;
+    private final PostFragmentCache postFragmentCache;
+    private final ContentVersionService contentVersionService;
+    private final PostSecurityService postSecurityService;
+    private final ImageNormalizer imageNormalizer;
+    private final ImageMetadataExtractor imageMetadataExtractor;
+    private final ImageStore imageStore;
+    private final PerceptualHasher perceptualHasher;
+    private final DuplicateImageIndex duplicateImageIndex;
 
     @Autowired
-    public PostService(PostRepository postRepository, UserRepository userRepository) {
+    public PostService(PostRepository postRepository, UserRepository userRepository, LikeService likeService,
+                       PostFragmentCache postFragmentCache, ContentVersionService contentVersionService,
+                       PostSecurityService postSecurityService, ImageNormalizer imageNormalizer,
+                       ImageMetadataExtractor imageMetadataExtractor, ImageStore imageStore,
+                       PerceptualHasher perceptualHasher, DuplicateImageIndex duplicateImageIndex) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.likeService = likeService;
+        this.postFragmentCache = postFragmentCache;
+        this.contentVersionService = contentVersionService;
+        this.postSecurityService = postSecurityService;
+        this.imageNormalizer = imageNormalizer;
+        this.imageMetadataExtractor = imageMetadataExtractor;
+        this.imageStore = imageStore;
+        this.perceptualHasher = perceptualHasher;
+        this.duplicateImageIndex = duplicateImageIndex;
     }
 
     @PostConstruct
     public void init() {
         try {
-            Files.createDirectories(Paths.get(uploadDir));
+            stagingDir = Paths.get(uploadDir, ".staging");
+            Files.createDirectories(stagingDir);
         } catch (IOException e) {
             throw new RuntimeException("Could not create upload directory!", e);
         }
     }
 
     // Helper method to convert Post entity to PostDto
-    private PostDto convertToDto(Post post) {
+    PostDto convertToDto(Post post) {
         UserDto userDto = null;
         if (post.getUser() != null) {
             User user = post.getUser();
             userDto = new UserDto(user.getId(), user.getUsername());
         }
 
-        return new PostDto(
+        PostDto postDto = new PostDto(
                 post.getId(),
                 post.getTitle(),
                 post.getDescription(),
@@ -67,36 +114,101 @@ public class PostService {
                 post.getCreatedAt(),
                 userDto
         );
+        postDto.setUpdatedAt(post.getUpdatedAt());
+        postDto.setVersion(post.getVersion());
+        postDto.setLikeCount(likeService.currentLikeCount(post.getId(), post.getLikeCount()));
+        postDto.setImageWidth(post.getImageWidth());
+        postDto.setImageHeight(post.getImageHeight());
+        postDto.setImageMimeType(post.getImageMimeType());
+        postDto.setImageBytes(post.getImageBytes());
+        postDto.setImageDominantColor(post.getImageDominantColor());
+        postDto.setImagePlaceholder(post.getImagePlaceholder());
+        postDto.setDuplicateOfId(post.getDuplicateOfId());
+        return postDto;
     }
 
     @Transactional(readOnly = true)
     public Page<PostDto> findAllPosts(Pageable pageable) {
-        return postRepository.findAllByOrderByCreatedAtDesc(pageable)
+        return postRepository.findAllByOrderByCreatedAtDescIdDesc(pageable)
                 .map(this::convertToDto);
     }
 
     @Transactional(readOnly = true)
     public Optional<PostDto> findPostById(Long id) {
-        return postRepository.findById(id)
+        return postRepository.findWithUserById(id)
                 .map(this::convertToDto);
     }
 
+    /**
+     * Loads posts for the given ids with a single query and returns them in the requested order,
+     * with a not-found marker for every id that doesn't exist.
+     */
+    @Transactional(readOnly = true)
+    public List<PostBatchItem> findPostsByIds(List<Long> ids) {
+        Map<Long, PostDto> found = new HashMap<>();
+        for (Post post : postRepository.findAllWithUserByIdIn(new HashSet<>(ids))) {
+            found.put(post.getId(), convertToDto(post));
+        }
+        List<PostBatchItem> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PostDto postDto = found.get(id);
+            items.add(new PostBatchItem(id, postDto != null, postDto));
+        }
+        return items;
+    }
+
     @Transactional
     public PostDto savePost(Post post, MultipartFile imageFile, UserDetails userDetails) throws IOException {
         User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         post.setUser(user);
 
-        String imagePath = saveImageFile(imageFile);
+        String imagePath = saveImageFile(imageFile, post);
         post.setImagePath(imagePath);
+        deleteImageOnRollback(imagePath);
         Post savedPost = postRepository.save(post);
+        duplicateImageIndex.update(savedPost.getId(), null, savedPost.getImageHash());
+        contentVersionService.postChanged(savedPost.getId(), savedPost.getVersion());
         return convertToDto(savedPost); // Return DTO
     }
 
+    /**
+     * Creates a post whose image is a completed resumable upload. The file is hard-linked into the
+     * staging directory, so nothing is copied and the upload keeps its file until the post is saved. On
+     * filesystems without hard links it is copied instead, which costs a second copy of the upload.
+     */
+    @Transactional
+    public PostDto savePostFromUpload(Post post, Path uploadedFile, String originalFilename, UserDetails userDetails)
+            throws IOException {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        post.setUser(user);
+
+        String uniqueFileName = UUID.randomUUID().toString() + validatedExtension(originalFilename);
+        Path filePath = stagingDir.resolve(uniqueFileName);
+        // A link rather than a move: the upload keeps its file until the post is saved, so a failed
+        // finalize can be retried. Both live under the upload directory; copy where links are unsupported.
+        try {
+            Files.createLink(filePath, uploadedFile);
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.warn("Could not link upload {} into {} ({}), copying its {} bytes instead",
+                    uploadedFile.getFileName(), stagingDir, e.toString(), Files.size(uploadedFile));
+            Files.copy(uploadedFile, filePath);
+        }
+        post.setImagePath(storeImage(filePath, post));
+        deleteImageOnRollback(post.getImagePath());
+
+        Post savedPost = postRepository.save(post);
+        duplicateImageIndex.update(savedPost.getId(), null, savedPost.getImageHash());
+        contentVersionService.postChanged(savedPost.getId(), savedPost.getVersion());
+        return convertToDto(savedPost);
+    }
+
     @Transactional
     public Optional<PostDto> updatePost(Long id, Post postDetails, MultipartFile imageFile) throws IOException {
-        return postRepository.findById(id)
+        return postRepository.findWithUserById(id)
                 .map(post -> {
+                    Long oldImageHash = post.getImageHash();
                     // Update fields from postDetails
                     post.setTitle(postDetails.getTitle());
                     post.setDescription(postDetails.getDescription());
@@ -106,89 +218,223 @@ public class PostService {
                     if (imageFile != null && !imageFile.isEmpty()) {
                         try {
                             String oldImagePath = post.getImagePath();
-                            if (oldImagePath != null && !oldImagePath.isEmpty()) {
-                                // Extract file name from oldImagePath
-                                Path oldImageFileName = Paths.get(oldImagePath).getFileName();
-                                Path oldImageFile = Paths.get(uploadDir, oldImageFileName.toString());
-                                Files.deleteIfExists(oldImageFile);
-                            }
-                            
-                            String newImagePath = saveImageFile(imageFile);
+                            // Store the new image first, so a rejected upload leaves the old one in place.
+                            String newImagePath = saveImageFile(imageFile, post);
                             post.setImagePath(newImagePath);
+                            deleteImageOnRollback(newImagePath);
+                            deleteImageAfterCommit(oldImagePath);
                         } catch (IOException e) {
                             throw new RuntimeException("Failed to update image file", e);
                         }
                     } else if (postDetails.getImagePath() == null || postDetails.getImagePath().isEmpty()) {
                          // If no new image and client explicitly removed image, delete old one and set null
-                         String oldImagePath = post.getImagePath();
-                         if (oldImagePath != null && !oldImagePath.isEmpty()) {
-                             Path oldImageFileName = Paths.get(oldImagePath).getFileName();
-                             Path oldImageFile = Paths.get(uploadDir, oldImageFileName.toString());
-                             try {
-                                 Files.deleteIfExists(oldImageFile);
-                             } catch (IOException e) {
-                                 throw new RuntimeException("Failed to delete old image file", e);
-                             }
-                         }
+                         deleteImageAfterCommit(post.getImagePath());
                          post.setImagePath(null);
+                         clearImageDetails(post);
                     }
 
-                    Post updatedPost = postRepository.save(post);
+                    // Flush so the returned dto already carries the incremented version.
+                    Post updatedPost = postRepository.saveAndFlush(post);
+                    duplicateImageIndex.update(id, oldImageHash, updatedPost.getImageHash());
+                    postFragmentCache.invalidate(id);
+                    contentVersionService.postChanged(id, updatedPost.getVersion());
                     return convertToDto(updatedPost); // Return DTO
                 });
     }
 
+    /**
+     * Applies only the supplied fields. expectedVersion is the version the client last saw (null to
+     * skip the check); the image is only touched when a new file is supplied.
+     */
+    @Transactional
+    public Optional<PostDto> patchPost(Long id, PostPatchRequest patch, MultipartFile imageFile, Long expectedVersion)
+            throws IOException {
+        Optional<Post> found = postRepository.findWithUserById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        Post post = found.get();
+        if (expectedVersion != null && expectedVersion != post.getVersion()) {
+            throw new PostVersionMismatchException(id, post.getVersion());
+        }
+
+        if (patch != null) {
+            if (patch.getTitle() != null) {
+                post.setTitle(patch.getTitle());
+            }
+            if (patch.getDescription() != null) {
+                post.setDescription(patch.getDescription());
+            }
+            if (patch.getHashtags() != null) {
+                post.setHashtags(patch.getHashtags());
+            }
+        }
+        Long oldImageHash = post.getImageHash();
+        if (imageFile != null && !imageFile.isEmpty()) {
+            String oldImagePath = post.getImagePath();
+            post.setImagePath(saveImageFile(imageFile, post));
+            deleteImageOnRollback(post.getImagePath());
+            deleteImageAfterCommit(oldImagePath);
+        }
+
+        // The version column makes this UPDATE conditional, so a concurrent edit fails with an
+        // optimistic locking exception instead of being overwritten.
+        Post updatedPost = postRepository.saveAndFlush(post);
+        duplicateImageIndex.update(id, oldImageHash, updatedPost.getImageHash());
+        postFragmentCache.invalidate(id);
+        contentVersionService.postChanged(id, updatedPost.getVersion());
+        return Optional.of(convertToDto(updatedPost));
+    }
+
     @Transactional
     public void deletePost(Long id) {
         postRepository.findById(id).ifPresent(post -> {
-            String imagePath = post.getImagePath();
-            if (imagePath != null && !imagePath.isEmpty()) {
-                try {
-                    // Extract file name from imagePath
-                    Path imageFileName = Paths.get(imagePath).getFileName();
-                    Path imageFile = Paths.get(uploadDir, imageFileName.toString());
-                    Files.deleteIfExists(imageFile);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failed to delete image file for post " + id, e);
-                }
-            }
+            deleteImageAfterCommit(post.getImagePath());
+            likeService.deleteLikesForPost(id);
             postRepository.delete(post);
+            duplicateImageIndex.update(id, post.getImageHash(), null);
+            postFragmentCache.invalidate(id);
+            contentVersionService.postDeleted(id);
+            postSecurityService.evict(id);
         });
     }
 
-    private String saveImageFile(MultipartFile imageFile) throws IOException {
+    String saveImageFile(MultipartFile imageFile, Post post) throws IOException {
         if (imageFile == null || imageFile.isEmpty()) {
             return null;
         }
 
-        String originalFilename = imageFile.getOriginalFilename();
-        
-        // --- Security Improvement: File Extension Validation ---
-        if (originalFilename == null) {
-            throw new IOException("File must have a name.");
-        }
-        
-        String fileExtension = originalFilename.substring(originalFilename.lastIndexOf(".")).toLowerCase();
-        List<String> allowedExtensions = List.of(".png", ".jpg", ".jpeg", ".gif", ".webp");
-
-        if (!allowedExtensions.contains(fileExtension)) {
-            throw new IOException("Invalid file type. Only " + allowedExtensions + " are allowed.");
-        }
-        // --- End Security Improvement ---
+        String fileExtension = validatedExtension(imageFile.getOriginalFilename());
 
         String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-        Path filePath = Paths.get(uploadDir, uniqueFileName);
+        Path filePath = stagingDir.resolve(uniqueFileName);
 
         try (var inputStream = imageFile.getInputStream()) {
             Files.copy(inputStream, filePath);
         }
 
-        return "/uploads/" + uniqueFileName;
+        return storeImage(filePath, post);
+    }
+
+    /**
+     * Runs a staged file through the normalizer, records its before/after sizes, metadata and
+     * perceptual hash on the post and hands it to the image store. Returns the public path, whose
+     * extension may have changed. Throws DuplicateImageException before storing anything if
+     * near-duplicates are rejected and this is one.
+     */
+    private String storeImage(Path filePath, Post post) throws IOException {
+        NormalizedImage normalized = imageNormalizer.normalize(filePath);
+        String fileName = normalized.file().getFileName().toString();
+        try {
+            Long imageHash = perceptualHasher.dHash(normalized.file());
+            post.setDuplicateOfId(duplicateImageIndex.check(imageHash, post.getId()));
+            post.setImageHash(imageHash);
+
+            post.setImageOriginalBytes(normalized.originalBytes());
+            post.setImageBytes(normalized.storedBytes());
+
+            ImageMetadata metadata = imageMetadataExtractor.extract(normalized.file());
+            post.setImageWidth(metadata.width());
+            post.setImageHeight(metadata.height());
+            post.setImageMimeType(metadata.mimeType());
+            post.setImageDominantColor(metadata.dominantColor());
+            post.setImagePlaceholder(metadata.placeholder());
+
+            imageStore.put(fileName, normalized.file());
+        } catch (DuplicateImageException e) {
+            imageNormalizer.deleteOriginal(fileName);
+            throw e;
+        } finally {
+            Files.deleteIfExists(normalized.file());
+        }
+        return "/uploads/" + fileName;
+    }
+
+    private static void clearImageDetails(Post post) {
+        post.setImageOriginalBytes(null);
+        post.setImageBytes(null);
+        post.setImageWidth(null);
+        post.setImageHeight(null);
+        post.setImageMimeType(null);
+        post.setImageDominantColor(null);
+        post.setImagePlaceholder(null);
+        post.setImageHash(null);
+        post.setDuplicateOfId(null);
+    }
+
+    /**
+     * Deletes an image the post no longer refers to, once that is committed. Until then the row still
+     * points at it, and a rollback (e.g. a version conflict on the update) has to find it in place.
+     */
+    private void deleteImageAfterCommit(String imagePath) {
+        if (imagePath == null || imagePath.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteImageQuietly(imagePath);
+            }
+        });
+    }
+
+    /**
+     * Deletes a newly stored image again if the transaction that would refer to it rolls back.
+     */
+    private void deleteImageOnRollback(String imagePath) {
+        if (imagePath == null || imagePath.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    deleteImageQuietly(imagePath);
+                }
+            }
+        });
+    }
+
+    // The transaction is already over, so a failure can only leave an orphaned file behind.
+    private void deleteImageQuietly(String imagePath) {
+        try {
+            deleteImageFile(imagePath);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not delete image {}: {}", imagePath, e.getMessage());
+        }
+    }
+
+    private void deleteImageFile(String imagePath) throws IOException {
+        // Extract file name from imagePath
+        String imageFileName = Paths.get(imagePath).getFileName().toString();
+        imageStore.delete(imageFileName);
+        // Images stored before another backend was configured are still served from the upload directory.
+        Files.deleteIfExists(Paths.get(uploadDir, imageFileName));
+        imageNormalizer.deleteOriginal(imageFileName);
+    }
+
+    /**
+     * Lower-cased extension of an uploaded file name, e.g. ".png", if it is one of the allowed image types.
+     */
+    static String validatedExtension(String originalFilename) throws IOException {
+        // --- Security Improvement: File Extension Validation ---
+        if (originalFilename == null) {
+            throw new IOException("File must have a name.");
+        }
+
+        int dot = originalFilename.lastIndexOf(".");
+        String fileExtension = dot < 0 ? "" : originalFilename.substring(dot).toLowerCase();
+
+        if (!ALLOWED_EXTENSIONS.contains(fileExtension)) {
+            throw new IOException("Invalid file type. Only " + ALLOWED_EXTENSIONS + " are allowed.");
+        }
+        // --- End Security Improvement ---
+        return fileExtension;
     }
 
     @Transactional(readOnly = true)
     public Page<PostDto> findPostsByTag(String hashtag, Pageable pageable) {
-        return postRepository.findByHashtagsContainingOrderByCreatedAtDesc(hashtag, pageable)
+        return postRepository.findByHashtagsContainingOrderByCreatedAtDescIdDesc(hashtag, pageable)
                 .map(this::convertToDto);
     }
 }
@@ -0,0 +1,18 @@
+package com.example.test.service;
+
+/**
+ * Thrown when a conditional update names a post version that is no longer current.
+ */
+public class PostVersionMismatchException extends RuntimeException {
+
+    private final long currentVersion;
+
+    public PostVersionMismatchException(Long postId, long currentVersion) {
+        super("Post " + postId + " has been modified (current version " + currentVersion + ")");
+        this.currentVersion = currentVersion;
+    }
+
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
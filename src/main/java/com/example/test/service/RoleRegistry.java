@@ -0,0 +1,43 @@
+package com.example.test.service;
+
+import com.example.test.domain.ERole;
+import com.example.test.domain.Role;
+import com.example.test.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Roles never change at runtime, so they are created if missing and loaded once at startup instead
+ * of being looked up on every signup.
+ */
+@Component
+public class RoleRegistry {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private Map<ERole, Role> roles;
+
+    @PostConstruct
+    public void load() {
+        Map<ERole, Role> loaded = new EnumMap<>(ERole.class);
+        for (ERole name : ERole.values()) {
+            Role role = roleRepository.findByName(name)
+                    .orElseGet(() -> roleRepository.save(new Role(name)));
+            loaded.put(name, role);
+        }
+        roles = Collections.unmodifiableMap(loaded);
+    }
+
+    public Role get(ERole name) {
+        Role role = roles.get(name);
+        if (role == null) {
+            throw new IllegalStateException("Error: Role " + name + " is not registered.");
+        }
+        return role;
+    }
+}
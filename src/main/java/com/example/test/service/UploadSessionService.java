@@ -0,0 +1,280 @@
+package com.example.test.service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resumable (tus-like) uploads: a client creates a session with the total length, sends chunks at
+ * increasing offsets and can ask for the current offset to resume after a dropped connection.
+ *
+ * Chunks are written with positional FileChannel writes into a partial file under the upload
+ * directory, so the finished file can be renamed into place without copying. Sessions live in memory;
+ * the reaper removes sessions (and partial files) that saw no activity within the session TTL.
+ *
+ * A session is worked on by one request at a time; a second chunk or finalize for a busy session is a
+ * conflict rather than a wait. The session ends only once its completion has succeeded, so a failed
+ * finalize can be retried, and each user may have maxSessionsPerUser unfinished sessions.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Value("${app.upload.dir}")
+    private String uploadDir;
+
+    @Value("${app.upload.resumable.max-size:104857600}")
+    private long maxUploadSize;
+
+    @Value("${app.upload.resumable.session-ttl-ms:86400000}")
+    private long sessionTtlMs;
+
+    @Value("${app.upload.resumable.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    private Path partialDir;
+
+    private final ConcurrentHashMap<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Integer> sessionsPerOwner = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        partialDir = Paths.get(uploadDir, ".partial");
+        try {
+            Files.createDirectories(partialDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create partial upload directory!", e);
+        }
+        // Sessions don't survive a restart, so partial files left behind are garbage.
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(partialDir)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clean partial upload directory: {}", e.getMessage());
+        }
+    }
+
+    public UploadSession create(Long ownerId, String fileName, long length) throws IOException {
+        String extension = PostService.validatedExtension(fileName);
+        if (length <= 0 || length > maxUploadSize) {
+            throw new IllegalArgumentException("Upload length must be between 1 and " + maxUploadSize + " bytes.");
+        }
+        sessionsPerOwner.compute(ownerId, (owner, count) -> {
+            if (count != null && count >= maxSessionsPerUser) {
+                throw new UploadConflictException("Too many unfinished uploads; finish or abort one first.");
+            }
+            return count == null ? 1 : count + 1;
+        });
+        String id = UUID.randomUUID().toString();
+        Path file = partialDir.resolve(id + extension);
+        try {
+            Files.createFile(file);
+        } catch (IOException e) {
+            releaseSlot(ownerId);
+            throw e;
+        }
+
+        UploadSession session = new UploadSession(id, ownerId, fileName, length, file);
+        sessions.put(id, session);
+        return session;
+    }
+
+    public Optional<UploadSession> find(String id, Long ownerId) {
+        UploadSession session = sessions.get(id);
+        if (session == null || !session.ownerId.equals(ownerId)) {
+            return Optional.empty();
+        }
+        return Optional.of(session);
+    }
+
+    /**
+     * Appends the request body at the given offset, which must equal the current offset.
+     *
+     * @return the new offset
+     */
+    public long appendChunk(UploadSession session, long offset, InputStream body) throws IOException {
+        lockForRequest(session);
+        try {
+            if (session.finished) {
+                throw new UploadConflictException("Upload " + session.id + " is no longer active.");
+            }
+            if (offset != session.offset) {
+                throw new UploadConflictException("Expected offset " + session.offset + " but got " + offset + ".");
+            }
+
+            long position = session.offset;
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte[] array = buffer.array();
+                int read;
+                while ((read = body.read(array, 0, array.length)) != -1) {
+                    if (position + read > session.length) {
+                        throw new IllegalArgumentException("Chunk exceeds the declared upload length.");
+                    }
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    // Record progress as we go so an interrupted chunk can be resumed where it stopped.
+                    session.offset = position;
+                }
+            } finally {
+                session.lastActivity = Instant.now();
+            }
+            return session.offset;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Hands the file of a completed upload to completion and ends the session once that succeeds. The
+     * file must be left in place (copy or link it); it is deleted with the session. If completion throws,
+     * the session and its file stay, so the client can retry.
+     */
+    public <T> T complete(UploadSession session, Completion<T> completion) throws IOException {
+        lockForRequest(session);
+        try {
+            if (session.finished) {
+                throw new UploadConflictException("Upload " + session.id + " is no longer active.");
+            }
+            if (session.offset != session.length) {
+                throw new UploadConflictException("Upload is incomplete: " + session.offset + " of "
+                        + session.length + " bytes received.");
+            }
+            session.lastActivity = Instant.now();
+            T result = completion.apply(session.file);
+            end(session);
+            return result;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    public void abort(UploadSession session) throws IOException {
+        session.lock.lock();
+        try {
+            end(session);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    private static void lockForRequest(UploadSession session) {
+        if (!session.lock.tryLock()) {
+            throw new UploadConflictException("Upload " + session.id + " is busy with another request.");
+        }
+    }
+
+    // Called with the session locked.
+    private void end(UploadSession session) throws IOException {
+        session.finished = true;
+        if (sessions.remove(session.id, session)) {
+            releaseSlot(session.ownerId);
+        }
+        Files.deleteIfExists(session.file);
+    }
+
+    private void releaseSlot(Long ownerId) {
+        sessionsPerOwner.computeIfPresent(ownerId, (owner, count) -> count > 1 ? count - 1 : null);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.resumable.reaper-interval-ms:600000}")
+    public void reapExpiredSessions() {
+        Instant cutoff = Instant.now().minusMillis(sessionTtlMs);
+        for (UploadSession session : sessions.values()) {
+            // A locked session is being written to right now, so it is not idle.
+            if (session.lastActivity.isBefore(cutoff) && session.lock.tryLock()) {
+                try {
+                    end(session);
+                    logger.info("Expired upload session {} after {} of {} bytes", session.id, session.offset,
+                            session.length);
+                } catch (IOException e) {
+                    logger.warn("Could not delete expired upload {}: {}", session.id, e.getMessage());
+                } finally {
+                    session.lock.unlock();
+                }
+            }
+        }
+    }
+
+    public Instant expiresAt(UploadSession session) {
+        return session.lastActivity.plusMillis(sessionTtlMs);
+    }
+
+    public static class UploadSession {
+        private final String id;
+        private final Long ownerId;
+        private final String fileName;
+        private final long length;
+        private final Path file;
+        // Held for a whole chunk, including its blocking reads, so not a monitor.
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long offset;
+        private volatile Instant lastActivity = Instant.now();
+        private volatile boolean finished;
+
+        UploadSession(String id, Long ownerId, String fileName, long length, Path file) {
+            this.id = id;
+            this.ownerId = ownerId;
+            this.fileName = fileName;
+            this.length = length;
+            this.file = file;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Work done with the file of a completed upload, e.g. turning it into a post.
+     */
+    @FunctionalInterface
+    public interface Completion<T> {
+        T apply(Path file) throws IOException;
+    }
+
+    /**
+     * The chunk or request doesn't fit the current state of the upload (wrong offset, not finished, ...).
+     */
+    public static class UploadConflictException extends RuntimeException {
+        public UploadConflictException(String message) {
+            super(message);
+        }
+    }
+}
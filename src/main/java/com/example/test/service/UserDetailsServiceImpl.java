@@ -1,25 +1,64 @@
 package com.example.test.service;
 
+import com.example.test.cache.BoundedCache;
 import com.example.test.domain.User;
 import com.example.test.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     UserRepository userRepository;
 
+    // Every authenticated request resolves its user here; authorities change rarely, so entries are
+    // kept for a bounded time and evicted explicitly when the password or roles change.
+    private final BoundedCache<String, UserDetailsImpl> userCache;
+
+    public UserDetailsServiceImpl(@Value("${app.security.user-cache.max-size:10000}") int maxSize,
+                                  @Value("${app.security.user-cache.ttl-ms:300000}") long ttlMs) {
+        this.userCache = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    // Not @Transactional: a cache hit must not open a transaction (and check out a connection).
+    // Roles are fetched eagerly, so the repository call alone loads everything UserDetailsImpl needs.
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+        return userCache.computeIfAbsent(username, name -> {
+            User user = userRepository.findByUsername(name)
+                    .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + name));
+
+            return UserDetailsImpl.build(user);
+        });
+    }
+
+    /**
+     * Drops the cached details of a user. Call after changing the user's password or roles.
+     */
+    public void evictUser(String username) {
+        userCache.evict(username);
+    }
+
+    public void evictAll() {
+        userCache.clear();
+    }
+
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash needs re-encoding.
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+        evictUser(user.getUsername());
 
         return UserDetailsImpl.build(user);
     }
@@ -0,0 +1,48 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.springframework.core.io.Resource;
+
+/**
+ * Where stored images live. Keys are the file names PostService generates ("uuid.ext"); callers never
+ * build storage paths themselves.
+ */
+public interface ImageStore {
+
+    /**
+     * Stores the content of source under key. The source file is consumed: moved or deleted on success.
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * A resource for serving the image over HTTP, or empty if there is no such image.
+     */
+    Optional<Resource> get(String key) throws IOException;
+
+    /**
+     * Opens the image content.
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no such image
+     */
+    InputStream stream(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * @return whether something was deleted
+     */
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Keys are plain file names; anything that could address another location is rejected.
+     */
+    static String checkKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith(".") || key.contains("/") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        return key;
+    }
+}
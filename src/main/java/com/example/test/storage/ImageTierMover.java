@@ -0,0 +1,37 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically moves old images from the hot to the cold tier when tiered storage is configured.
+ */
+@Component
+public class ImageTierMover {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageTierMover.class);
+
+    @Autowired
+    ImageStore imageStore;
+
+    @Scheduled(fixedDelayString = "${app.storage.tiered.move-interval-ms:3600000}",
+            initialDelayString = "${app.storage.tiered.move-initial-delay-ms:60000}")
+    public void moveColdImages() {
+        ImageStore store = imageStore instanceof PackedImageStore packed ? packed.getDelegate() : imageStore;
+        if (!(store instanceof TieredImageStore tiered)) {
+            return;
+        }
+        try {
+            int moved = tiered.migrate();
+            if (moved > 0) {
+                logger.info("Moved {} images to the cold tier", moved);
+            }
+        } catch (IOException e) {
+            logger.error("Cold tier migration failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Images as plain files in one directory.
+ */
+public class LocalImageStore implements ImageStore {
+
+    private final Path root;
+
+    public LocalImageStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different file system: copy next to the target first so readers never see a partial file.
+            Path temp = target.resolveSibling(key + ".tmp");
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.delete(source);
+        }
+    }
+
+    @Override
+    public Optional<Resource> get(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? Optional.of(new PathResource(file)) : Optional.empty();
+    }
+
+    @Override
+    public InputStream stream(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        return Files.deleteIfExists(resolve(key));
+    }
+
+    Path resolve(String key) {
+        return root.resolve(ImageStore.checkKey(key));
+    }
+}
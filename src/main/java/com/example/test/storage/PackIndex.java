@@ -0,0 +1,258 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing hash table from blob key to (pack, offset, length), kept in a memory-mapped file so
+ * lookups read straight from the page cache and nothing per entry lives on the heap.
+ *
+ * Layout: a 64 byte header followed by capacity slots of 64 bytes each:
+ * state(1) keyLength(1) key(46) packId(4) length(4) offset(8). Deleted entries become tombstones so
+ * probe chains stay intact; they are dropped when the table is grown. Not thread-safe, callers lock.
+ */
+class PackIndex implements AutoCloseable {
+
+    static final int MAX_KEY_LENGTH = 46;
+
+    private static final int MAGIC = 0x50494458; // "PIDX"
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final byte EMPTY = 0;
+    private static final byte LIVE = 1;
+    private static final byte DELETED = 2;
+
+    private static final int KEY_OFFSET = 2;
+    private static final int PACK_OFFSET = 48;
+    private static final int LENGTH_OFFSET = 52;
+    private static final int DATA_OFFSET = 56;
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int used;
+    private int live;
+
+    private PackIndex(Path path) {
+        this.path = path;
+    }
+
+    static PackIndex open(Path path, int initialCapacity) throws IOException {
+        PackIndex index = new PackIndex(path);
+        if (Files.exists(path)) {
+            index.map(path);
+            if (index.map.getInt(0) != MAGIC) {
+                index.close();
+                throw new IOException("Not a pack index: " + path);
+            }
+            index.capacity = index.map.getInt(8);
+            index.used = index.map.getInt(12);
+            index.live = index.map.getInt(16);
+        } else {
+            create(path, initialCapacity);
+            return open(path, initialCapacity);
+        }
+        return index;
+    }
+
+    private static void create(Path path, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, 1);
+            buffer.putInt(8, capacity);
+            buffer.force();
+        }
+    }
+
+    private void map(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+
+    /**
+     * @return the slot of the live entry for key, or -1
+     */
+    int find(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_KEY_LENGTH) {
+            return -1;
+        }
+        int slot = firstSlot(bytes);
+        for (int probes = 0; probes < capacity; probes++) {
+            int base = slotBase(slot);
+            byte state = map.get(base);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == LIVE && keyEquals(base, bytes)) {
+                return slot;
+            }
+            slot = (slot + 1) % capacity;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts or overwrites the entry for key. Returns {packId, length} of the entry it replaced, so
+     * the caller can account for the garbage, or null.
+     */
+    int[] put(String key, int packId, long offset, int length) throws IOException {
+        byte[] bytes = keyBytes(key);
+        int existing = find(key);
+        int[] previous = null;
+        if (existing >= 0) {
+            previous = new int[] {packId(existing), length(existing)};
+            write(slotBase(existing), bytes, packId, offset, length);
+            return previous;
+        }
+        if (used + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        int slot = firstSlot(bytes);
+        while (map.get(slotBase(slot)) == LIVE) {
+            slot = (slot + 1) % capacity;
+        }
+        int base = slotBase(slot);
+        if (map.get(base) == EMPTY) {
+            used++;
+        }
+        write(base, bytes, packId, offset, length);
+        live++;
+        writeCounts();
+        return null;
+    }
+
+    void delete(int slot) {
+        map.put(slotBase(slot), DELETED);
+        live--;
+        writeCounts();
+    }
+
+    int packId(int slot) {
+        return map.getInt(slotBase(slot) + PACK_OFFSET);
+    }
+
+    int length(int slot) {
+        return map.getInt(slotBase(slot) + LENGTH_OFFSET);
+    }
+
+    long offset(int slot) {
+        return map.getLong(slotBase(slot) + DATA_OFFSET);
+    }
+
+    String key(int slot) {
+        int base = slotBase(slot);
+        byte[] bytes = new byte[map.get(base + 1)];
+        map.get(base + KEY_OFFSET, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return live;
+    }
+
+    boolean isLive(int slot) {
+        return map.get(slotBase(slot)) == LIVE;
+    }
+
+    void force() {
+        map.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (map != null) {
+            map.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void write(int base, byte[] key, int packId, long offset, int length) {
+        map.put(base + 1, (byte) key.length);
+        map.put(base + KEY_OFFSET, key);
+        map.putInt(base + PACK_OFFSET, packId);
+        map.putInt(base + LENGTH_OFFSET, length);
+        map.putLong(base + DATA_OFFSET, offset);
+        // State last, so a torn write leaves an entry that was never visible.
+        map.put(base, LIVE);
+    }
+
+    private void writeCounts() {
+        map.putInt(12, used);
+        map.putInt(16, live);
+    }
+
+    /**
+     * Rehashes the live entries into a table twice the size and swaps it in with an atomic rename.
+     */
+    private void grow() throws IOException {
+        Path grown = path.resolveSibling(path.getFileName() + ".grow");
+        Files.deleteIfExists(grown);
+        create(grown, capacity * 2);
+        try (PackIndex target = open(grown, capacity * 2)) {
+            for (int slot = 0; slot < capacity; slot++) {
+                if (isLive(slot)) {
+                    target.put(key(slot), packId(slot), offset(slot), length(slot));
+                }
+            }
+        }
+        close();
+        Files.move(grown, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        map(path);
+        capacity = map.getInt(8);
+        used = map.getInt(12);
+        live = map.getInt(16);
+    }
+
+    private int firstSlot(byte[] key) {
+        // FNV-1a
+        int hash = 0x811c9dc5;
+        for (byte b : key) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return (hash & 0x7FFFFFFF) % capacity;
+    }
+
+    private boolean keyEquals(int base, byte[] key) {
+        if (map.get(base + 1) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (map.get(base + KEY_OFFSET + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    static byte[] keyBytes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0 || bytes.length > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Blob key must be 1 to " + MAX_KEY_LENGTH + " bytes: " + key);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,564 @@
+package com.example.test.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only pack files for small images, so millions of thumbnails don't each cost an inode and a
+ * file open, and backups copy a few large files instead.
+ *
+ * Each record in a pack is magic(4) keyLength(2) key length(4) data. A memory-mapped PackIndex maps
+ * keys to the record data; reads return read-only slices of the memory-mapped pack, so serving a blob
+ * copies nothing onto the heap. Deleting only drops the index entry; the scheduled compaction rewrites
+ * the live records of mostly-garbage packs into the active pack and removes the old file.
+ *
+ * A record's data is forced to disk before the index points at it, so after a crash the index never
+ * refers to bytes that were not written. Deleting appends a marker record (length -1) before dropping
+ * the index entry, so rebuilding the index from the packs does not bring deleted blobs back. On every
+ * open the active pack is read on from its last indexed record: complete records there are indexed
+ * (the index may have lost them), and a torn record at the end is cut off before anything is appended.
+ */
+@Component
+public class PackedBlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PackedBlobStore.class);
+
+    private static final int RECORD_MAGIC = 0x424C4F42; // "BLOB"
+    private static final String INDEX_FILE = "index.dat";
+
+    // Length of a delete marker record, which has no data.
+    private static final int DELETE_MARKER = -1;
+
+    // Records moved per write-lock hold (and per fsync) during compaction.
+    private static final int COMPACTION_BATCH = 64;
+
+    @Value("${app.storage.pack.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.storage.pack.dir:uploads_packs}")
+    private String packDir;
+
+    @Value("${app.storage.pack.max-pack-size:268435456}")
+    private long maxPackSize;
+
+    @Value("${app.storage.pack.max-blob-size:1048576}")
+    private long maxBlobSize;
+
+    @Value("${app.storage.pack.index-capacity:65536}")
+    private int indexCapacity;
+
+    @Value("${app.storage.pack.compaction.garbage-ratio:0.5}")
+    private double compactionGarbageRatio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock.
+    private final TreeMap<Integer, Pack> packs = new TreeMap<>();
+    private PackIndex index;
+    private Pack active;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (maxPackSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("app.storage.pack.max-pack-size must fit in a single mapping (2 GB)");
+        }
+        Path dir = Paths.get(packDir);
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "pack-*.dat")) {
+            for (Path file : files) {
+                Pack pack = new Pack(packId(file), file);
+                packs.put(pack.id, pack);
+            }
+        }
+
+        Path indexFile = dir.resolve(INDEX_FILE);
+        boolean rebuild = !Files.exists(indexFile) && !packs.isEmpty();
+        index = PackIndex.open(indexFile, indexCapacity);
+        if (rebuild) {
+            rebuildIndex();
+        } else if (!packs.isEmpty()) {
+            recoverTail(packs.lastEntry().getValue());
+        }
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (index.isLive(slot)) {
+                Pack pack = packs.get(index.packId(slot));
+                if (pack != null) {
+                    pack.liveBytes += index.length(slot);
+                }
+            }
+        }
+        active = packs.isEmpty() ? newPack(1) : packs.lastEntry().getValue();
+        logger.info("Opened {} pack file(s) with {} blobs in {}", packs.size(), index.size(), dir.toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether a blob of this size belongs in a pack; larger files are left as plain files.
+     */
+    public boolean accepts(long size) {
+        return enabled && size <= maxBlobSize;
+    }
+
+    /**
+     * Appends the file's content under key, replacing an earlier blob with the same key.
+     */
+    public void put(String key, Path file) throws IOException {
+        if (!enabled) {
+            throw new IllegalStateException("Pack storage is disabled");
+        }
+        byte[] keyBytes = PackIndex.keyBytes(key);
+        lock.writeLock().lock();
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = source.size();
+            if (length > maxBlobSize) {
+                throw new IllegalArgumentException("Blob is larger than " + maxBlobSize + " bytes: " + key);
+            }
+            long dataOffset = append(keyBytes, (int) length, target -> {
+                long transferred = 0;
+                while (transferred < length) {
+                    transferred += source.transferTo(transferred, length - transferred, target);
+                }
+            });
+            active.channel.force(false);
+            index(key, dataOffset, (int) length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read-only slice of the mapped pack holding the blob, or empty if there is no such blob.
+     */
+    public Optional<ByteBuffer> get(String key) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (!enabled) {
+                return Optional.empty();
+            }
+            int slot = index.find(key);
+            if (slot < 0) {
+                return Optional.empty();
+            }
+            Pack pack = packs.get(index.packId(slot));
+            if (pack == null) {
+                return Optional.empty();
+            }
+            return Optional.of(pack.slice(index.offset(slot), index.length(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean delete(String key) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!enabled) {
+                return false;
+            }
+            int slot = index.find(key);
+            if (slot < 0) {
+                return false;
+            }
+            append(PackIndex.keyBytes(key), DELETE_MARKER, channel -> { });
+            active.channel.force(false);
+            Pack pack = packs.get(index.packId(slot));
+            if (pack != null) {
+                pack.liveBytes -= index.length(slot);
+            }
+            index.delete(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites packs that are mostly garbage. Records are moved in small batches under the write lock,
+     * so readers and uploads only ever wait for a few small copies and one fsync.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.pack.compaction.interval-ms:3600000}")
+    public void compact() {
+        if (!enabled) {
+            return;
+        }
+        for (Pack pack : compactionCandidates()) {
+            try {
+                compact(pack);
+            } catch (IOException e) {
+                logger.error("Compaction of {} failed: {}", pack.path.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private List<Pack> compactionCandidates() {
+        lock.readLock().lock();
+        try {
+            List<Pack> candidates = new ArrayList<>();
+            for (Pack pack : packs.values()) {
+                long size = pack.size();
+                if (pack != active && size > 0 && (size - pack.liveBytes) >= size * compactionGarbageRatio) {
+                    candidates.add(pack);
+                }
+            }
+            return candidates;
+        } catch (IOException e) {
+            logger.error("Could not inspect pack files: {}", e.getMessage());
+            return List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the pack's live records to the active pack in batches: each batch is appended, forced
+     * once and only then indexed, all under one hold of the write lock. Delete markers are carried
+     * over while an older pack might still hold a record they delete.
+     */
+    private void compact(Pack pack) throws IOException {
+        List<String> keys = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (index.isLive(slot) && index.packId(slot) == pack.id) {
+                    keys.add(index.key(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (int from = 0; from < keys.size(); from += COMPACTION_BATCH) {
+            lock.writeLock().lock();
+            try {
+                List<String> moved = new ArrayList<>();
+                List<long[]> locations = new ArrayList<>();
+                for (String key : keys.subList(from, Math.min(keys.size(), from + COMPACTION_BATCH))) {
+                    int slot = index.find(key);
+                    if (slot < 0 || index.packId(slot) != pack.id) {
+                        continue; // deleted or replaced meanwhile
+                    }
+                    ByteBuffer data = pack.slice(index.offset(slot), index.length(slot));
+                    Pack target = active;
+                    long dataOffset = append(PackIndex.keyBytes(key), data.remaining(), channel -> {
+                        while (data.hasRemaining()) {
+                            channel.write(data);
+                        }
+                    });
+                    if (target != active) {
+                        target.channel.force(false); // the batch rolled over into a new pack
+                    }
+                    moved.add(key);
+                    locations.add(new long[] {active.id, dataOffset, index.length(slot)});
+                }
+                active.channel.force(false);
+                for (int i = 0; i < moved.size(); i++) {
+                    long[] location = locations.get(i);
+                    index(moved.get(i), (int) location[0], location[1], (int) location[2]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // The pack is no longer appended to, so it can be read without the lock.
+        List<String> markers = new ArrayList<>();
+        scan(pack, 0, (key, dataOffset, length) -> {
+            if (length == DELETE_MARKER) {
+                markers.add(key);
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            if (pack.liveBytes > 0) {
+                return; // a concurrent put landed here; try again next round
+            }
+            if (!markers.isEmpty() && packs.firstKey() < pack.id) {
+                for (String key : markers) {
+                    // A live entry was written after the marker and must survive a rebuild.
+                    if (index.find(key) < 0) {
+                        Pack target = active;
+                        append(PackIndex.keyBytes(key), DELETE_MARKER, channel -> { });
+                        if (target != active) {
+                            target.channel.force(false);
+                        }
+                    }
+                }
+                active.channel.force(false);
+            }
+            packs.remove(pack.id);
+            index.force();
+            // Readers may still hold slices of the old mapping; it stays valid until they drop it.
+            pack.close();
+            Files.deleteIfExists(pack.path);
+            logger.info("Compacted {} ({} records moved)", pack.path.getFileName(), keys.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.close();
+            }
+            for (Pack pack : packs.values()) {
+                pack.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- internals, all called with the write lock held ---
+
+    private long append(byte[] key, int length, DataWriter writer) throws IOException {
+        long recordSize = 4 + 2 + key.length + 4 + (long) Math.max(0, length);
+        if (active.size() + recordSize > maxPackSize && active.size() > 0) {
+            active = newPack(active.id + 1);
+        }
+        FileChannel channel = active.channel;
+        long start = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(4 + 2 + key.length + 4);
+        header.putInt(RECORD_MAGIC).putShort((short) key.length).put(key).putInt(length).flip();
+        channel.position(start);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        long dataOffset = channel.position();
+        writer.write(channel);
+        return dataOffset;
+    }
+
+    private void index(String key, long dataOffset, int length) throws IOException {
+        index(key, active.id, dataOffset, length);
+    }
+
+    private void index(String key, int packId, long dataOffset, int length) throws IOException {
+        int[] replaced = index.put(key, packId, dataOffset, length);
+        packs.get(packId).liveBytes += length;
+        if (replaced != null) {
+            Pack previous = packs.get(replaced[0]);
+            if (previous != null) {
+                previous.liveBytes -= replaced[1];
+            }
+        }
+    }
+
+    private Pack newPack(int id) throws IOException {
+        Path file = Paths.get(packDir, String.format("pack-%06d.dat", id));
+        Files.createFile(file);
+        Pack pack = new Pack(id, file);
+        packs.put(id, pack);
+        return pack;
+    }
+
+    /**
+     * Recreates a lost index by scanning every record; later records win over earlier ones with the same
+     * key, and delete markers remove them again.
+     */
+    private void rebuildIndex() throws IOException {
+        logger.warn("Pack index missing, rebuilding it from {} pack file(s)", packs.size());
+        for (Pack pack : packs.values()) {
+            cutOff(pack, scan(pack, 0, (key, dataOffset, length) -> replay(pack, key, dataOffset, length)));
+        }
+        index.force();
+    }
+
+    /**
+     * Indexes the complete records after the last one the index knows of in the active pack, and cuts off
+     * a torn one behind them, so that new records never follow garbage.
+     */
+    private void recoverTail(Pack pack) throws IOException {
+        long from = 0;
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            if (index.isLive(slot) && index.packId(slot) == pack.id) {
+                from = Math.max(from, index.offset(slot) + index.length(slot));
+            }
+        }
+        int[] replayed = new int[1];
+        long end = scan(pack, from, (key, dataOffset, length) -> {
+            replay(pack, key, dataOffset, length);
+            replayed[0]++;
+        });
+        if (replayed[0] > 0) {
+            logger.info("Replayed {} record(s) after the last indexed one in {}", replayed[0], pack.path.getFileName());
+        }
+        cutOff(pack, end);
+        index.force();
+    }
+
+    private void replay(Pack pack, String key, long dataOffset, int length) throws IOException {
+        if (length == DELETE_MARKER) {
+            int slot = index.find(key);
+            if (slot >= 0) {
+                index.delete(slot);
+            }
+        } else {
+            index.put(key, pack.id, dataOffset, length);
+        }
+    }
+
+    private void cutOff(Pack pack, long end) throws IOException {
+        if (end >= pack.size()) {
+            return;
+        }
+        if (pack == packs.lastEntry().getValue()) {
+            logger.warn("Truncating {} from {} to {} bytes after a torn record", pack.path.getFileName(),
+                    pack.size(), end);
+            pack.channel.truncate(end);
+        } else {
+            logger.warn("Ignoring {} bytes after a torn record in {}", pack.size() - end, pack.path.getFileName());
+        }
+    }
+
+    /**
+     * Hands every complete record from position from on to the visitor, in file order.
+     *
+     * @return the end of the last complete record: the size of the pack, unless it ends in a torn or
+     *         corrupt record
+     */
+    private long scan(Pack pack, long from, RecordVisitor visitor) throws IOException {
+        long size = pack.size();
+        long position = from;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pack.path)))) {
+            in.skipNBytes(from);
+            while (position < size) {
+                if (in.readInt() != RECORD_MAGIC) {
+                    logger.warn("Corrupt record at {} in {}", position, pack.path.getFileName());
+                    break;
+                }
+                byte[] key = new byte[in.readUnsignedShort()];
+                in.readFully(key);
+                int length = in.readInt();
+                if (length < 0 && length != DELETE_MARKER) {
+                    logger.warn("Corrupt record at {} in {}", position, pack.path.getFileName());
+                    break;
+                }
+                long dataOffset = position + 4 + 2 + key.length + 4;
+                long recordEnd = dataOffset + Math.max(0, length);
+                if (recordEnd > size) {
+                    break; // torn append
+                }
+                in.skipNBytes(Math.max(0, length));
+                visitor.visit(new String(key, StandardCharsets.UTF_8), dataOffset, length);
+                position = recordEnd;
+            }
+        } catch (EOFException e) {
+            // The header itself was cut off.
+        }
+        return position;
+    }
+
+    private static int packId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring("pack-".length(), name.length() - ".dat".length()));
+    }
+
+    @FunctionalInterface
+    private interface DataWriter {
+        void write(FileChannel target) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(String key, long dataOffset, int length) throws IOException;
+    }
+
+    private static final class Pack {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        long liveBytes;
+        private volatile MappedByteBuffer mapped;
+
+        Pack(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        long size() throws IOException {
+            return channel.size();
+        }
+
+        ByteBuffer slice(long offset, int length) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || offset + length > current.capacity()) {
+                synchronized (this) {
+                    current = mapped;
+                    if (current == null || offset + length > current.capacity()) {
+                        // The active pack grows; remap it to its current size when a read goes past the end.
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        mapped = current;
+                    }
+                }
+            }
+            return current.slice((int) offset, length).asReadOnlyBuffer();
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Stream over a slice returned by get, for callers that need an InputStream.
+     */
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, source.remaining());
+                source.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining();
+            }
+        };
+    }
+}
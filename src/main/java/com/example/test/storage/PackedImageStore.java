@@ -0,0 +1,114 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Puts images small enough for the PackedBlobStore into pack files and passes everything else to the
+ * delegate store. Lookups try the packs first.
+ */
+public class PackedImageStore implements ImageStore {
+
+    private final PackedBlobStore packedBlobStore;
+    private final ImageStore delegate;
+
+    public PackedImageStore(PackedBlobStore packedBlobStore, ImageStore delegate) {
+        this.packedBlobStore = packedBlobStore;
+        this.delegate = delegate;
+    }
+
+    public ImageStore getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        ImageStore.checkKey(key);
+        if (packedBlobStore.accepts(Files.size(source))) {
+            packedBlobStore.put(key, source);
+            Files.delete(source);
+        } else {
+            delegate.put(key, source);
+        }
+    }
+
+    @Override
+    public Optional<Resource> get(String key) throws IOException {
+        Optional<ByteBuffer> blob = packedBlobStore.get(ImageStore.checkKey(key));
+        if (blob.isPresent()) {
+            return Optional.of(new BlobResource(key, blob.get()));
+        }
+        return delegate.get(key);
+    }
+
+    @Override
+    public InputStream stream(String key) throws IOException {
+        Optional<ByteBuffer> blob = packedBlobStore.get(ImageStore.checkKey(key));
+        if (blob.isPresent()) {
+            return PackedBlobStore.asInputStream(blob.get());
+        }
+        return delegate.stream(key);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return packedBlobStore.get(ImageStore.checkKey(key)).isPresent() || delegate.exists(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        boolean packed = packedBlobStore.delete(ImageStore.checkKey(key));
+        return delegate.delete(key) || packed;
+    }
+
+    /**
+     * Resource over a slice of a mapped pack file; serving it copies nothing onto the heap.
+     */
+    static class BlobResource extends AbstractResource {
+
+        private final String fileName;
+        private final ByteBuffer data;
+
+        BlobResource(String fileName, ByteBuffer data) {
+            this.fileName = fileName;
+            this.data = data;
+        }
+
+        @Override
+        public String getDescription() {
+            return "packed blob [" + fileName + "]";
+        }
+
+        @Override
+        public String getFilename() {
+            return fileName;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return data.remaining();
+        }
+
+        @Override
+        public long lastModified() {
+            // Not tracked per blob; stored images never change under the same name anyway.
+            return -1;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return PackedBlobStore.asInputStream(data);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Images as objects in an S3-compatible bucket (AWS S3, MinIO, ...), spoken to directly over HTTP with
+ * SigV4-signed requests.
+ *
+ * Served images are proxied through the application; put a CDN in front of the bucket for heavy read traffic.
+ */
+public class S3ImageStore implements ImageStore {
+
+    private final URI endpoint;
+    private final String bucket;
+    private final String prefix;
+    private final boolean pathStyle;
+    private final AwsV4Signer signer;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+
+    /**
+     * @param endpoint  e.g. https://s3.eu-central-1.amazonaws.com or http://localhost:9000
+     * @param prefix    key prefix inside the bucket, may be empty
+     * @param pathStyle address the bucket as endpoint/bucket/key instead of bucket.endpoint/key
+     */
+    public S3ImageStore(URI endpoint, String region, String bucket, String prefix, boolean pathStyle,
+                        String accessKey, String secretKey, Duration requestTimeout) {
+        this.endpoint = endpoint;
+        this.bucket = bucket;
+        this.prefix = prefix == null ? "" : prefix;
+        this.pathStyle = pathStyle;
+        this.signer = new AwsV4Signer(accessKey, secretKey, region, "s3");
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .build();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        String payloadHash = sha256Hex(source);
+        HttpRequest request = signed("PUT", objectUri(key), payloadHash, Map.of("Content-Type", contentType(key)))
+                .PUT(HttpRequest.BodyPublishers.ofFile(source))
+                .build();
+        HttpResponse<String> response = send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 PUT " + key + " failed with " + response.statusCode() + ": " + response.body());
+        }
+        Files.delete(source);
+    }
+
+    @Override
+    public Optional<Resource> get(String key) throws IOException {
+        HttpResponse<Void> head = head(key);
+        if (head.statusCode() == 404) {
+            return Optional.empty();
+        }
+        checkStatus("HEAD", key, head.statusCode());
+        long contentLength = head.headers().firstValueAsLong("Content-Length").orElse(-1L);
+        long lastModified = head.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(-1L);
+        return Optional.of(new ObjectResource(key, contentLength, lastModified));
+    }
+
+    @Override
+    public InputStream stream(String key) throws IOException {
+        HttpRequest request = signed("GET", objectUri(key), AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            response.body().close();
+            throw new NoSuchFileException(key);
+        }
+        if (response.statusCode() / 100 != 2) {
+            response.body().close();
+            checkStatus("GET", key, response.statusCode());
+        }
+        return response.body();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> head = head(key);
+        if (head.statusCode() == 404) {
+            return false;
+        }
+        checkStatus("HEAD", key, head.statusCode());
+        return true;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        // S3 answers 204 whether or not the object existed, so ask first to report it honestly.
+        if (!exists(key)) {
+            return false;
+        }
+        HttpRequest request = signed("DELETE", objectUri(key), AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                .DELETE()
+                .build();
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        checkStatus("DELETE", key, response.statusCode());
+        return true;
+    }
+
+    private HttpResponse<Void> head(String key) throws IOException {
+        HttpRequest request = signed("HEAD", objectUri(key), AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        return send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest.Builder signed(String method, URI uri, String payloadHash, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(builder::header);
+        return builder;
+    }
+
+    URI objectUri(String key) {
+        StringBuilder objectPath = new StringBuilder();
+        // The prefix may contain '/' separators, which stay literal; everything else is encoded.
+        for (String segment : (prefix + ImageStore.checkKey(key)).split("/", -1)) {
+            objectPath.append('/').append(AwsV4Signer.encodeSegment(segment));
+        }
+        String base = endpoint.toString().replaceAll("/+$", "");
+        if (pathStyle) {
+            return URI.create(base + "/" + AwsV4Signer.encodeSegment(bucket) + objectPath);
+        }
+        return URI.create(endpoint.getScheme() + "://" + bucket + "." + endpoint.getRawAuthority() + objectPath);
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling S3");
+        }
+    }
+
+    private static void checkStatus(String method, String key, int status) throws IOException {
+        if (status / 100 != 2) {
+            throw new IOException("S3 " + method + " " + key + " failed with " + status);
+        }
+    }
+
+    private static String sha256Hex(Path file) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(file),
+                MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String contentType(String key) {
+        String name = key.toLowerCase();
+        if (name.endsWith(".png")) {
+            return "image/png";
+        }
+        if (name.endsWith(".jpg") || name.endsWith(".jpeg")) {
+            return "image/jpeg";
+        }
+        if (name.endsWith(".gif")) {
+            return "image/gif";
+        }
+        if (name.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Resource for an object whose HEAD has already been answered; the body is fetched when read.
+     */
+    private class ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final long contentLength;
+        private final long lastModified;
+
+        ObjectResource(String key, long contentLength, long lastModified) {
+            this.key = key;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + prefix + key + "]";
+        }
+
+        @Override
+        public String getFilename() {
+            return key;
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return stream(key);
+        }
+    }
+}
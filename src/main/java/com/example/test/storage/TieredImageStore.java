@@ -0,0 +1,97 @@
+package com.example.test.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * New images go to a local hot tier (fast disk); images older than coldAfter are moved to the cold
+ * tier by migrate(), which ImageTierMover runs in the background. Reads try hot first, then cold.
+ */
+public class TieredImageStore implements ImageStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TieredImageStore.class);
+
+    private final LocalImageStore hot;
+    private final ImageStore cold;
+    private final Duration coldAfter;
+
+    public TieredImageStore(LocalImageStore hot, ImageStore cold, Duration coldAfter) {
+        this.hot = hot;
+        this.cold = cold;
+        this.coldAfter = coldAfter;
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        hot.put(key, source);
+    }
+
+    @Override
+    public Optional<Resource> get(String key) throws IOException {
+        Optional<Resource> resource = hot.get(key);
+        return resource.isPresent() ? resource : cold.get(key);
+    }
+
+    @Override
+    public InputStream stream(String key) throws IOException {
+        try {
+            return hot.stream(key);
+        } catch (NoSuchFileException e) {
+            // Either never hot or migrated since the caller looked.
+            return cold.stream(key);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return hot.exists(key) || cold.exists(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        boolean deletedHot = hot.delete(key);
+        return cold.delete(key) || deletedHot;
+    }
+
+    /**
+     * Moves hot images last modified more than coldAfter ago to the cold tier. The cold copy is
+     * complete before the hot file goes away, so readers always find one of them.
+     *
+     * @return the number of images moved
+     */
+    public int migrate() throws IOException {
+        Instant cutoff = Instant.now().minus(coldAfter);
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(hot.getRoot())) {
+            for (Path file : files) {
+                String key = file.getFileName().toString();
+                // Skip the staging/partial directories and in-flight temp files.
+                if (key.startsWith(".") || key.endsWith(".tmp")) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attributes.isRegularFile() || attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                    continue;
+                }
+                try {
+                    cold.put(key, file);
+                    moved++;
+                } catch (IOException e) {
+                    logger.warn("Could not move {} to the cold tier: {}", key, e.getMessage());
+                }
+            }
+        }
+        return moved;
+    }
+}
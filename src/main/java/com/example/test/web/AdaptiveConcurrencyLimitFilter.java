@@ -0,0 +1,161 @@
+package com.example.test.web;
+
+import com.example.test.service.UserDetailsImpl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Sheds /api load when the backend slows down, before requests pile up on Hikari's connectionTimeout.
+ *
+ * The concurrency limit follows AIMD: it grows by roughly one per round trip while read latency stays
+ * close to the best latency seen in the current baseline window, and shrinks multiplicatively when
+ * it drifts above baselineTolerance times that. Only GET requests are sampled, since their latency
+ * tracks the database; uploads and BCrypt-bound signins would skew it.
+ *
+ * Post writes (POST/PUT/PATCH/DELETE under /api/posts) by an authenticated user may use a reserve
+ * above the limit, so they keep going while anonymous feed reads are rejected with 503 and Retry-After.
+ * The filter runs in the security chain after the JWT filter, so "authenticated" means a verified token
+ * rather than any Authorization header. A disabled filter passes every request through.
+ */
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimitFilter.class);
+
+    private static final byte[] REJECTED_BODY = ("{\"status\":503,\"error\":\"Service Unavailable\","
+            + "\"message\":\"Server is busy, please retry shortly\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double baselineTolerance;
+    private final long latencyFloorNanos;
+    private final long baselineWindowNanos;
+    private final String retryAfterSeconds;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Guarded by this; currentLimit is the published integer view read on the hot path.
+    private double limit;
+    private long baselineRttNanos = Long.MAX_VALUE;
+    private long baselineResetAt;
+    private long lastDecreaseAt;
+    private volatile int currentLimit;
+
+    public AdaptiveConcurrencyLimitFilter(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                                          double backoffRatio, double baselineTolerance, long latencyFloorMs,
+                                          long baselineWindowMs, int retryAfterSeconds) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.baselineTolerance = baselineTolerance;
+        this.latencyFloorNanos = TimeUnit.MILLISECONDS.toNanos(latencyFloorMs);
+        this.baselineWindowNanos = TimeUnit.MILLISECONDS.toNanos(baselineWindowMs);
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.currentLimit = (int) this.limit;
+        this.baselineResetAt = System.nanoTime() + baselineWindowNanos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Only the API is limited; static pages and uploads are served regardless.
+        if (!enabled || !request.getRequestURI().startsWith("/api/")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        int allowed = currentLimit;
+        if (isPriority(request)) {
+            allowed += Math.max(1, allowed / 4);
+        }
+        if (inFlight.incrementAndGet() > allowed) {
+            inFlight.decrementAndGet();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+            if ("GET".equals(request.getMethod())) {
+                onSample(System.nanoTime() - start);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static boolean isPriority(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"POST".equals(method) && !"PUT".equals(method) && !"PATCH".equals(method) && !"DELETE".equals(method)) {
+            return false;
+        }
+        String path = request.getRequestURI();
+        // The batch lookup is a read that happens to be a POST.
+        if (!(path.equals("/api/posts") || path.startsWith("/api/posts/")) || path.equals("/api/posts/batch")) {
+            return false;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl;
+    }
+
+    private synchronized void onSample(long rttNanos) {
+        long now = System.nanoTime();
+        if (now - baselineResetAt >= 0) {
+            // Start a new baseline window so the reference latency can follow real changes in the workload.
+            baselineRttNanos = rttNanos;
+            baselineResetAt = now + baselineWindowNanos;
+        } else if (rttNanos < baselineRttNanos) {
+            baselineRttNanos = rttNanos;
+        }
+
+        boolean congested = rttNanos > latencyFloorNanos && rttNanos > baselineRttNanos * baselineTolerance;
+        if (congested) {
+            // At most one decrease per round trip, otherwise a burst of slow responses collapses the limit.
+            if (now - lastDecreaseAt >= rttNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseAt = now;
+            }
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+
+        int newLimit = (int) limit;
+        if (newLimit != currentLimit) {
+            logger.debug("Adaptive concurrency limit {} -> {} (rtt={}ms, baseline={}ms)", currentLimit, newLimit,
+                    TimeUnit.NANOSECONDS.toMillis(rttNanos), TimeUnit.NANOSECONDS.toMillis(baselineRttNanos));
+            currentLimit = newLimit;
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.test.web;
+
+import com.example.test.storage.ImageStore;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.ResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+/**
+ * Serves /uploads/** from the configured ImageStore. Misses fall through to the plain upload directory,
+ * which still holds images stored before another backend was configured.
+ */
+public class ImageStoreResourceResolver implements ResourceResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStoreResourceResolver.class);
+
+    private final ImageStore imageStore;
+
+    public ImageStoreResourceResolver(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    @Override
+    @Nullable
+    public Resource resolveResource(@Nullable HttpServletRequest request, String requestPath,
+                                    List<? extends Resource> locations, ResourceResolverChain chain) {
+        try {
+            Optional<Resource> resource = imageStore.get(requestPath);
+            if (resource.isPresent()) {
+                return resource.get();
+            }
+        } catch (IllegalArgumentException e) {
+            return null; // not a valid image key
+        } catch (IOException e) {
+            logger.warn("Image store lookup of {} failed: {}", requestPath, e.getMessage());
+        }
+        return chain.resolveResource(request, requestPath, locations);
+    }
+
+    @Override
+    @Nullable
+    public String resolveUrlPath(String resourcePath, List<? extends Resource> locations, ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourcePath, locations);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.test.web;
+
+import com.example.test.cache.PostFragmentCache;
+import com.example.test.dto.CustomPageDto;
+import com.example.test.dto.PostDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+/**
+ * Writes CustomPageDto responses by concatenating cached per-post JSON fragments straight into the
+ * response stream instead of running Jackson over the whole page.
+ */
+public class PostPageHttpMessageConverter extends AbstractHttpMessageConverter<CustomPageDto<?>> {
+
+    private static final byte[] CONTENT_START = "{\"content\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIKE_COUNT = ",\"likeCount\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIKED_BY_ME = ",\"likedByMe\":".getBytes(StandardCharsets.UTF_8);
+
+    private final PostFragmentCache fragmentCache;
+    private final ObjectMapper objectMapper;
+
+    public PostPageHttpMessageConverter(PostFragmentCache fragmentCache, ObjectMapper objectMapper) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+        this.fragmentCache = fragmentCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CustomPageDto.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CustomPageDto<?> readInternal(Class<? extends CustomPageDto<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CustomPageDto is a response-only type", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(CustomPageDto<?> page, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = outputMessage.getBody();
+        out.write(CONTENT_START);
+        List<?> content = page.getContent();
+        if (content != null) {
+            for (int i = 0; i < content.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                Object item = content.get(i);
+                if (item instanceof PostDto post) {
+                    writePost(post, out);
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                }
+            }
+        }
+        out.write(ascii("],\"totalPages\":" + page.getTotalPages()
+                + ",\"number\":" + page.getNumber()
+                + ",\"first\":" + page.isFirst()
+                + ",\"last\":" + page.isLast() + "}"));
+        out.flush();
+    }
+
+    private void writePost(PostDto post, OutputStream out) throws IOException {
+        byte[] fragment = fragmentCache.fragment(post);
+        // Drop the closing brace and append the fields that vary per request.
+        out.write(fragment, 0, fragment.length - 1);
+        out.write(LIKE_COUNT);
+        out.write(ascii(Long.toString(post.getLikeCount())));
+        out.write(LIKED_BY_ME);
+        out.write(ascii(Boolean.toString(post.isLikedByMe())));
+        out.write('}');
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
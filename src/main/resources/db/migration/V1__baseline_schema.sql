@@ -0,0 +1,37 @@
+-- Schema as Hibernate's ddl-auto=update created it, so databases from before migrations existed can be
+-- baselined at this version (spring.flyway.baseline-on-migrate) and only run what comes after.
+
+CREATE TABLE roles (
+    id   INT NOT NULL AUTO_INCREMENT,
+    name ENUM ('ROLE_GUEST', 'ROLE_ADMIN'),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_roles_name UNIQUE (name)
+);
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(20)  NOT NULL,
+    password VARCHAR(120) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE user_roles (
+    user_id BIGINT NOT NULL,
+    role_id INT    NOT NULL,
+    PRIMARY KEY (user_id, role_id),
+    CONSTRAINT fk_user_roles_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_user_roles_role FOREIGN KEY (role_id) REFERENCES roles (id)
+);
+
+CREATE TABLE posts (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    title       VARCHAR(255)  NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    image_path  VARCHAR(255),
+    hashtags    VARCHAR(500),
+    created_at  DATETIME(6),
+    user_id     BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_posts_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
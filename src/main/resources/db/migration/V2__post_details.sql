@@ -0,0 +1,17 @@
+-- Columns added to posts since the baseline: image details, near-duplicate hashes, the denormalized
+-- like count and the optimistic-locking version. Existing rows start with no likes at version 0.
+
+ALTER TABLE posts ADD COLUMN (
+    image_original_bytes BIGINT,
+    image_bytes          BIGINT,
+    image_width          INT,
+    image_height         INT,
+    image_mime_type      VARCHAR(50),
+    image_dominant_color VARCHAR(7),
+    image_placeholder    VARCHAR(64),
+    image_hash           BIGINT,
+    duplicate_of_id      BIGINT,
+    updated_at           DATETIME(6),
+    like_count           BIGINT NOT NULL DEFAULT 0,
+    version              BIGINT NOT NULL DEFAULT 0
+);
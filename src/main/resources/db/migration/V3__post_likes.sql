@@ -0,0 +1,11 @@
+-- Who liked which post. Plain ids, no foreign keys: LikeService writes these in bulk and removes a
+-- post's likes itself when the post is deleted.
+
+CREATE TABLE post_likes (
+    id         BIGINT NOT NULL AUTO_INCREMENT,
+    user_id    BIGINT NOT NULL,
+    post_id    BIGINT NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_post_likes_user_post UNIQUE (user_id, post_id)
+);
@@ -0,0 +1,11 @@
+-- Indexes for the hot queries. users.username is already covered by its unique key from V1.
+
+-- Feed: ORDER BY created_at DESC with id as the tie breaker, read straight off the index with LIMIT.
+CREATE INDEX idx_posts_created_at_id ON posts (created_at, id);
+
+-- Owner lookups (a user's posts, the foreign key check when a user is deleted). On MySQL this also
+-- takes over from the index implicitly created for fk_posts_user.
+CREATE INDEX idx_posts_user_id ON posts (user_id);
+
+-- Deleting a post's likes; (user_id, post_id) is already served by uk_post_likes_user_post.
+CREATE INDEX idx_post_likes_post_id ON post_likes (post_id);
@@ -177,6 +177,111 @@ async function fetchPosts(page = 0, tag = '') {
     }
 }
 
+// --- Image placeholders ---
+// Posts carry the image's dimensions, dominant color and a BlurHash computed at upload time, so the
+// grid can reserve space and show a blurred preview before the image itself has downloaded.
+
+const BLURHASH_CHARS = '0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~';
+const placeholderUrls = new Map();
+
+function decode83(str) {
+    let value = 0;
+    for (const c of str) {
+        value = value * 83 + BLURHASH_CHARS.indexOf(c);
+    }
+    return value;
+}
+
+function srgbToLinear(value) {
+    const v = value / 255;
+    return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+}
+
+function linearToSrgb(value) {
+    const v = Math.max(0, Math.min(1, value));
+    return v <= 0.0031308 ? Math.round(v * 12.92 * 255) : Math.round((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255);
+}
+
+function signPow(value, exp) {
+    return Math.sign(value) * Math.pow(Math.abs(value), exp);
+}
+
+function blurHashToDataUrl(hash, width = 32, height = 32) {
+    if (placeholderUrls.has(hash)) {
+        return placeholderUrls.get(hash);
+    }
+    const sizeFlag = decode83(hash[0]);
+    const numY = Math.floor(sizeFlag / 9) + 1;
+    const numX = (sizeFlag % 9) + 1;
+    const maximumValue = (decode83(hash[1]) + 1) / 166;
+
+    const colors = [];
+    const dc = decode83(hash.substring(2, 6));
+    colors.push([srgbToLinear(dc >> 16), srgbToLinear((dc >> 8) & 255), srgbToLinear(dc & 255)]);
+    for (let i = 1; i < numX * numY; i++) {
+        const ac = decode83(hash.substring(4 + i * 2, 6 + i * 2));
+        colors.push([
+            signPow((Math.floor(ac / (19 * 19)) - 9) / 9, 2) * maximumValue,
+            signPow((Math.floor(ac / 19) % 19 - 9) / 9, 2) * maximumValue,
+            signPow((ac % 19 - 9) / 9, 2) * maximumValue
+        ]);
+    }
+
+    const canvas = document.createElement('canvas');
+    canvas.width = width;
+    canvas.height = height;
+    const ctx = canvas.getContext('2d');
+    const imageData = ctx.createImageData(width, height);
+    for (let y = 0; y < height; y++) {
+        for (let x = 0; x < width; x++) {
+            let r = 0, g = 0, b = 0;
+            for (let j = 0; j < numY; j++) {
+                for (let i = 0; i < numX; i++) {
+                    const basis = Math.cos(Math.PI * x * i / width) * Math.cos(Math.PI * y * j / height);
+                    const color = colors[i + j * numX];
+                    r += color[0] * basis;
+                    g += color[1] * basis;
+                    b += color[2] * basis;
+                }
+            }
+            const offset = 4 * (x + y * width);
+            imageData.data[offset] = linearToSrgb(r);
+            imageData.data[offset + 1] = linearToSrgb(g);
+            imageData.data[offset + 2] = linearToSrgb(b);
+            imageData.data[offset + 3] = 255;
+        }
+    }
+    ctx.putImageData(imageData, 0, 0);
+    const url = canvas.toDataURL();
+    placeholderUrls.set(hash, url);
+    return url;
+}
+
+// width/height attributes let the browser reserve the right box before the image loads.
+function imageAttributes(post) {
+    let attributes = 'loading="lazy" decoding="async"';
+    let style = '';
+    if (post.imageWidth && post.imageHeight) {
+        attributes += ` width="${post.imageWidth}" height="${post.imageHeight}"`;
+        style += `aspect-ratio: ${post.imageWidth} / ${post.imageHeight};`;
+    }
+    if (post.imageDominantColor) {
+        style += `background-color: ${post.imageDominantColor};`;
+    }
+    if (post.imagePlaceholder) {
+        try {
+            style += `background-image: url(${blurHashToDataUrl(post.imagePlaceholder)}); background-size: cover;`;
+        } catch (e) {
+            // Ignore a malformed placeholder; the dominant color still applies.
+        }
+    }
+    if (style) {
+        // Drop the placeholder once loaded so it doesn't show through transparent images.
+        attributes += ` style="${style}" onload="this.style.backgroundImage='none'; this.style.backgroundColor='transparent';"`;
+    }
+    return attributes;
+}
+
 function displayPosts(posts) {
     const postsGrid = document.querySelector('.posts-grid');
     postsGrid.innerHTML = '';
@@ -191,7 +296,7 @@ function displayPosts(posts) {
         postItem.className = 'post-item';
         postItem.dataset.postId = post.id;
         postItem.innerHTML = `
-            <img src="${post.imagePath}" alt="${post.description}">
+            <img src="${post.imagePath}" alt="${post.description}" ${imageAttributes(post)}>
             <h3>${post.description}</h3>
             <p>${post.hashtags ? post.hashtags.split(',').map(tag => `<span class="hashtag" data-tag="${tag.trim()}">#${tag.trim()}</span>`).join(' ') : ''}</p>
         `;
@@ -290,7 +395,7 @@ function renderPostDetailModal(post) {
     modal.innerHTML = `
         <div class="modal-content">
             <span class="close-button">&times;</span>
-            <img src="${post.imagePath}" alt="${post.description}" class="detail-image">
+            <img src="${post.imagePath}" alt="${post.description}" class="detail-image" ${imageAttributes(post)}>
             <h2>${post.description}</h2>
             <p>${post.hashtags ? post.hashtags.split(',').map(tag => `<span class="hashtag" data-tag="${tag.trim()}">#${tag.trim()}</span>`).join(' ') : ''}</p>
             <p>Posted by: ${post.user ? post.user.username : 'Unknown'}</p>
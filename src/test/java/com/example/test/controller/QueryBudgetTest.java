@@ -0,0 +1,281 @@
+package com.example.test.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.test.domain.ERole;
+import com.example.test.domain.Post;
+import com.example.test.domain.User;
+import com.example.test.repository.PostRepository;
+import com.example.test.repository.UserRepository;
+import com.example.test.security.jwt.JwtUtils;
+import com.example.test.service.RoleRegistry;
+import com.example.test.service.UserDetailsImpl;
+import com.example.test.service.UserDetailsServiceImpl;
+import com.example.test.support.SqlStatementCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+/**
+ * Holds every PostController and AuthController endpoint to a budget of SQL statements, so an N+1
+ * (such as a lazily loaded author per post) fails here with the offending statements listed.
+ *
+ * The second-level cache is cleared before each measured request, otherwise it would hide exactly the
+ * per-entity loads this is looking for. The caller's user details and like set are cached beforehand,
+ * as they are for anyone who has made a request recently; ownership checks start cold.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.test.support.SqlStatementCounter"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    private static final String PASSWORD = "budget-password";
+    private static final AtomicInteger runs = new AtomicInteger();
+    private static String encodedPassword;
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> uploadDir.toString());
+    }
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    RoleRegistry roleRegistry;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    JwtUtils jwtUtils;
+
+    private int run;
+    private String tag;
+    private User owner;
+    private String bearer;
+    private final List<Long> postIds = new ArrayList<>();
+
+    @BeforeEach
+    void createPostsByDifferentAuthors() throws Exception {
+        if (encodedPassword == null) {
+            encodedPassword = passwordEncoder.encode(PASSWORD);
+        }
+        run = runs.incrementAndGet();
+        tag = "budget" + run;
+        owner = createUser("budget-" + run + "-0");
+        postIds.add(createPost(owner));
+        postIds.add(createPost(createUser("budget-" + run + "-1")));
+        postIds.add(createPost(createUser("budget-" + run + "-2")));
+
+        UserDetailsImpl details = (UserDetailsImpl) userDetailsService.loadUserByUsername(owner.getUsername());
+        bearer = "Bearer " + jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+        // Caches the owner's like set.
+        mockMvc.perform(get("/api/posts").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void feed() throws Exception {
+        // Page of posts with their authors, and the total count.
+        assertAtMost(2, get("/api/posts"), status().isOk());
+        assertAtMost(2, get("/api/posts").header(HttpHeaders.AUTHORIZATION, bearer), status().isOk());
+    }
+
+    @Test
+    void tagSearch() throws Exception {
+        assertAtMost(2, get("/api/posts").param("tag", tag), status().isOk());
+    }
+
+    @Test
+    void postById() throws Exception {
+        assertAtMost(1, get("/api/posts/{id}", postIds.get(1)), status().isOk());
+    }
+
+    @Test
+    void postsByIds() throws Exception {
+        String ids = postIds.stream().map(String::valueOf).reduce((a, b) -> a + "," + b).orElseThrow();
+        assertAtMost(1, get("/api/posts").param("ids", ids), status().isOk());
+        assertAtMost(1, post("/api/posts/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("ids", postIds))), status().isOk());
+    }
+
+    @Test
+    void createPost() throws Exception {
+        // The author by username, and the insert.
+        assertAtMost(3, multipart("/api/posts")
+                .file(postPart("Created", "#" + tag))
+                .file(new MockMultipartFile("imageFile", "budget.png", "image/png", png()))
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isCreated());
+    }
+
+    @Test
+    void updatePost() throws Exception {
+        // Ownership check, the post with its author, and the update.
+        assertAtMost(3, multipart(HttpMethod.PUT, "/api/posts/{id}", postIds.get(0))
+                .file(postPart("Updated", "#" + tag))
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isOk());
+    }
+
+    @Test
+    void patchPost() throws Exception {
+        assertAtMost(3, patch("/api/posts/{id}", postIds.get(0))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("title", "Patched")))
+                .header(HttpHeaders.IF_MATCH, "*")
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isOk());
+    }
+
+    @Test
+    void deletePost() throws Exception {
+        // Ownership check, the post, its likes and the post itself.
+        assertAtMost(4, delete("/api/posts/{id}", postIds.get(0))
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isNoContent());
+    }
+
+    @Test
+    void likeAndUnlike() throws Exception {
+        // Likes are written behind; the request only reads the post's count, which also checks it exists.
+        assertAtMost(1, put("/api/posts/{id}/like", postIds.get(1))
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isOk());
+        assertAtMost(1, delete("/api/posts/{id}/like", postIds.get(1))
+                .header(HttpHeaders.AUTHORIZATION, bearer), status().isOk());
+    }
+
+    @Test
+    void signin() throws Exception {
+        // Nothing cached: the user with its roles by username.
+        userDetailsService.evictAll();
+        assertAtMost(2, post("/api/auth/signin")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "username", owner.getUsername(), "password", PASSWORD))), status().isOk());
+    }
+
+    @Test
+    void signup() throws Exception {
+        // Username check, the user and its role.
+        assertAtMost(3, post("/api/auth/signup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of(
+                        "username", "budget-" + run + "-new", "password", PASSWORD))), status().isOk());
+    }
+
+    private void assertAtMost(int budget, MockHttpServletRequestBuilder request, ResultMatcher expected)
+            throws Exception {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        List<String> statements;
+        SqlStatementCounter.start();
+        try {
+            mockMvc.perform(request).andExpect(expected);
+        } finally {
+            statements = SqlStatementCounter.stop();
+        }
+        SqlStatementCounter.assertAtMost(budget, describe(request), statements);
+    }
+
+    private String describe(MockHttpServletRequestBuilder request) {
+        MockHttpServletRequest built = request.buildRequest(new MockServletContext());
+        String query = built.getQueryString();
+        return built.getMethod() + " " + built.getRequestURI() + (query == null ? "" : "?" + query);
+    }
+
+    private User createUser(String username) {
+        User user = new User(username, encodedPassword);
+        user.setRoles(Set.of(roleRegistry.get(ERole.ROLE_GUEST)));
+        return userRepository.save(user);
+    }
+
+    private Long createPost(User author) {
+        Post post = new Post();
+        post.setTitle("Post by " + author.getUsername());
+        post.setDescription("Statement budget fixture");
+        post.setHashtags("#" + tag);
+        post.setUser(author);
+        return postRepository.save(post).getId();
+    }
+
+    private MockMultipartFile postPart(String title, String hashtags) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(Map.of(
+                "title", title, "description", "Statement budget fixture", "hashtags", hashtags));
+        return new MockMultipartFile("post", "", MediaType.APPLICATION_JSON_VALUE, json);
+    }
+
+    private byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(96, 64, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(0x3366CC + run * 0x10101));
+        g.fillRect(0, 0, 96, 64);
+        g.setColor(Color.WHITE);
+        g.fillOval(run % 48, 8, 40, 40);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.test.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.image.ImageMetadataExtractor.ImageMetadata;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ImageMetadataExtractorTest {
+
+    private final ImageMetadataExtractor extractor = new ImageMetadataExtractor();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void panoramasAreSampledOnEveryRow() throws IOException {
+        // A single step from the longer side would only sample the red top row.
+        BufferedImage image = new BufferedImage(6_400, 40, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 6_400, 40);
+        g.setColor(Color.RED);
+        g.fillRect(0, 0, 6_400, 8);
+        g.dispose();
+
+        ImageMetadata metadata = extractor.extract(png(image, "panorama.png"));
+
+        assertThat(metadata.width()).isEqualTo(6_400);
+        assertThat(metadata.height()).isEqualTo(40);
+        assertThat(metadata.mimeType()).isEqualTo("image/png");
+        assertThat(metadata.dominantColor()).isEqualTo("#ffffff");
+        assertThat(metadata.placeholder()).hasSize(28);
+    }
+
+    @Test
+    void imagesAboveThePixelCapOnlyGetTheirHeaderValues() throws IOException {
+        Path file = png(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB), "large.png");
+        ReflectionTestUtils.setField(extractor, "maxPixels", 10_000L);
+
+        ImageMetadata metadata = extractor.extract(file);
+
+        assertThat(metadata.width()).isEqualTo(200);
+        assertThat(metadata.height()).isEqualTo(100);
+        assertThat(metadata.mimeType()).isEqualTo("image/png");
+        assertThat(metadata.dominantColor()).isNull();
+        assertThat(metadata.placeholder()).isNull();
+    }
+
+    private Path png(BufferedImage image, String name) throws IOException {
+        Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.test.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.image.ImageNormalizer.NormalizedImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ImageNormalizerTest {
+
+    @TempDir
+    Path dir;
+
+    private final ImageNormalizer normalizer = new ImageNormalizer(new SimpleMeterRegistry());
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(normalizer, "enabled", true);
+        ReflectionTestUtils.setField(normalizer, "maxDimension", 100);
+        ReflectionTestUtils.setField(normalizer, "maxPixels", 100_000L);
+        ReflectionTestUtils.setField(normalizer, "jpegQuality", 0.85f);
+        normalizer.init();
+    }
+
+    @Test
+    void largeImagesAreDecodedAtMostMaxDimensionWide() throws IOException {
+        Path file = write("large.png", noise(1_000, 90));
+
+        NormalizedImage result = normalizer.normalize(file);
+
+        BufferedImage stored = ImageIO.read(result.file().toFile());
+        assertThat(stored.getWidth()).isEqualTo(100);
+        assertThat(stored.getHeight()).isEqualTo(9);
+    }
+
+    @Test
+    void imagesAboveThePixelCapAreStoredUnchanged() throws IOException {
+        Path file = write("huge.png", noise(1_000, 101));
+        byte[] before = Files.readAllBytes(file);
+
+        NormalizedImage result = normalizer.normalize(file);
+
+        assertThat(result.file()).isEqualTo(file);
+        assertThat(Files.readAllBytes(file)).isEqualTo(before);
+    }
+
+    @Test
+    void photographicPngsBecomeJpegsAndFlatOnesStayPng() throws IOException {
+        assertThat(normalizer.normalize(write("photo.png", noise(80, 60))).file().getFileName())
+                .hasToString("photo.jpg");
+        assertThat(normalizer.normalize(write("flat.png", flat(80, 60))).file().getFileName())
+                .hasToString("flat.png");
+    }
+
+    private Path write(String name, BufferedImage image) throws IOException {
+        Path file = dir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage flat(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
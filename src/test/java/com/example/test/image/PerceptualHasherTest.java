@@ -0,0 +1,51 @@
+package com.example.test.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PerceptualHasherTest {
+
+    private final PerceptualHasher hasher = new PerceptualHasher();
+
+    @Test
+    void wideImageHashesLikeItsInMemoryCopy() throws IOException {
+        BufferedImage image = new BufferedImage(20_000, 40, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 20_000, 40);
+        g.setColor(Color.BLACK);
+        for (int x = 0; x < 20_000; x += 3_000) {
+            g.fillRect(x, 0, 1_000, 40);
+        }
+        g.dispose();
+
+        Long hash = hasher.dHash(new ByteArrayInputStream(png(image)), "wide.png");
+
+        assertThat(hash).isEqualTo(PerceptualHasher.dHash(image));
+    }
+
+    @Test
+    void imagesAboveThePixelCapAreNotDecoded() throws IOException {
+        byte[] png = png(new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB));
+        assertThat(hasher.dHash(new ByteArrayInputStream(png), "small.png")).isNotNull();
+
+        ReflectionTestUtils.setField(hasher, "maxPixels", 10_000L);
+
+        assertThat(hasher.dHash(new ByteArrayInputStream(png), "large.png")).isNull();
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.test.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.domain.Post;
+import java.util.Arrays;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Starts from the schema ddl-auto=update created before Flyway was introduced, as every existing
+ * deployment has it: Flyway has to baseline it at V1, apply everything after, and the result has to
+ * pass Hibernate's validation with the existing rows intact.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:legacy;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class LegacySchemaMigrationTest {
+
+    @TestConfiguration
+    static class LegacySchema {
+
+        // Runs before Flyway and therefore before Hibernate validates the schema.
+        @Bean
+        FlywayMigrationStrategy createLegacySchemaFirst() {
+            return flyway -> {
+                new ResourceDatabasePopulator(new ClassPathResource("db/legacy-schema.sql"))
+                        .execute(flyway.getConfiguration().getDataSource());
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Test
+    void existingSchemaIsBaselinedAndMigrated() {
+        List<MigrationInfo> applied = Arrays.asList(flyway.info().applied());
+        assertThat(applied.get(0).getVersion().getVersion()).isEqualTo("1");
+        assertThat(applied.get(0).getType().isBaseline()).isTrue();
+        assertThat(applied).extracting(info -> info.getVersion().getVersion()).contains("2", "3", "4");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void existingPostsSurviveWithDefaults() {
+        List<Post> posts = postRepository.findAll();
+        assertThat(posts).hasSize(1);
+        Post post = posts.get(0);
+        assertThat(post.getTitle()).isEqualTo("Before migrations");
+        assertThat(post.getImagePath()).isEqualTo("/uploads/legacy.png");
+        assertThat(post.getLikeCount()).isZero();
+        assertThat(post.getVersion()).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.test.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.domain.Post;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Posts created in the same instant (bulk imports, the dataset generator) must still page
+ * deterministically: every post shows up on exactly one page of the feed and of a tag search.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-repository;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PostRepositoryTest {
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void postsWithEqualTimestampsPageByIdDescending() {
+        jdbcTemplate.update("INSERT INTO users (username, password) VALUES ('same-instant', 'x')");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'same-instant'", Long.class);
+        Timestamp instant = Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 12, 0));
+        for (int i = 0; i < 7; i++) {
+            jdbcTemplate.update("INSERT INTO posts (title, description, hashtags, created_at, updated_at, like_count, "
+                    + "version, user_id) VALUES (?, 'd', '#same', ?, ?, 0, 0, ?)", "Post " + i, instant, instant, userId);
+        }
+
+        List<Long> feed = new ArrayList<>();
+        List<Long> tagged = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            postRepository.findAllByOrderByCreatedAtDescIdDesc(PageRequest.of(page, 2))
+                    .forEach(post -> feed.add(post.getId()));
+            postRepository.findByHashtagsContainingOrderByCreatedAtDescIdDesc("#same", PageRequest.of(page, 2))
+                    .map(Post::getId).forEach(tagged::add);
+        }
+
+        assertThat(feed).hasSize(7).doesNotHaveDuplicates().isSortedAccordingTo(Comparator.reverseOrder());
+        assertThat(tagged).isEqualTo(feed);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.test.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/**
+ * Applies the Flyway migrations to an H2 database in MySQL mode and lets Hibernate validate every
+ * entity against the result, so a mapping change without a matching migration (or the other way
+ * round) fails here instead of at deploy time: the context does not start.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SchemaMigrationTest {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    void migrationsApplyCleanlyAndMatchTheEntities() {
+        assertThat(flyway.info().applied()).isNotEmpty();
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void hotQueriesHaveIndexes() throws SQLException {
+        assertThat(indexedColumns("posts")).contains(List.of("created_at", "id"), List.of("user_id"));
+        assertThat(indexedColumns("users")).contains(List.of("username"));
+        assertThat(indexedColumns("post_likes")).contains(List.of("post_id"), List.of("user_id", "post_id"));
+    }
+
+    private List<List<String>> indexedColumns(String table) throws SQLException {
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             ResultSet rs = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (column != null) {
+                    // Rows come ordered by index name and then ordinal position.
+                    indexes.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new ArrayList<>())
+                            .add(column.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return new ArrayList<>(indexes.values());
+    }
+}
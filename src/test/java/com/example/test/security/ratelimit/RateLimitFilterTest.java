@@ -0,0 +1,142 @@
+package com.example.test.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.servlet.ServletException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(true,
+            new RateLimitPolicy("signin", 100, 0),
+            new RateLimitPolicy("signin-username", 2, 0),
+            new RateLimitPolicy("signup", 100, 0),
+            new RateLimitPolicy("upload", 100, 0),
+            new RateLimitPolicy("write", 100, 0),
+            new RateLimitPolicy("read", 100, 0),
+            1000, 600_000);
+
+    @Test
+    void signinsForOneUsernameAreLimitedAcrossAddresses() throws Exception {
+        assertThat(signin("10.0.0.1", "alice").getStatus()).isEqualTo(200);
+        assertThat(signin("10.0.0.2", "Alice").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse limited = signin("10.0.0.3", "alice");
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isNotNull();
+
+        assertThat(signin("10.0.0.3", "bob").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void theControllerStillReadsTheSigninBody() throws Exception {
+        String body = "{\"username\":\"carol\",\"password\":\"secret\"}";
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(signinRequest("10.0.0.1", body), new MockHttpServletResponse(), chain);
+
+        byte[] forwarded = chain.getRequest().getInputStream().readAllBytes();
+        assertThat(new String(forwarded, StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    @Test
+    void oversizedSigninBodiesAreRejected() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(signinRequest("10.0.0.1", " ".repeat(10_000)), response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(413);
+    }
+
+    @Test
+    void internalRequestsFromLoopbackAreNotLimited() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = signinRequest("127.0.0.1", "{\"username\":\"guest\"}");
+            request.addHeader(RateLimitFilter.INTERNAL_HEADER, filter.internalToken());
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+        // Nothing was counted against the guest either.
+        assertThat(signin("10.0.0.1", "guest").getStatus()).isEqualTo(200);
+        assertThat(signin("10.0.0.2", "guest").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void theInternalTokenIsIgnoredFromOtherAddressesAndWhenWrong() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = signinRequest("10.0.0.1", "{\"username\":\"dave\"}");
+            request.addHeader(RateLimitFilter.INTERNAL_HEADER, filter.internalToken());
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        MockHttpServletRequest guessed = signinRequest("127.0.0.1", "{\"username\":\"dave\"}");
+        guessed.addHeader(RateLimitFilter.INTERNAL_HEADER, "guessed");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(guessed, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void multipartPatchesAreChargedAsUploads() throws Exception {
+        RateLimitFilter strict = new RateLimitFilter(true,
+                new RateLimitPolicy("signin", 100, 0),
+                new RateLimitPolicy("signin-username", 100, 0),
+                new RateLimitPolicy("signup", 100, 0),
+                new RateLimitPolicy("upload", 1, 0),
+                new RateLimitPolicy("write", 100, 0),
+                new RateLimitPolicy("read", 100, 0),
+                1000, 600_000);
+
+        assertThat(send(strict, "POST", "/api/posts", "multipart/form-data; boundary=x")).isEqualTo(200);
+        assertThat(send(strict, "PATCH", "/api/posts/7", "multipart/form-data; boundary=x")).isEqualTo(429);
+        assertThat(send(strict, "PATCH", "/api/posts/7", "application/json")).isEqualTo(200);
+    }
+
+    @Test
+    void likesBatchLookupsAndUploadFinalizingAreLimited() throws Exception {
+        RateLimitFilter strict = new RateLimitFilter(true,
+                new RateLimitPolicy("signin", 100, 0),
+                new RateLimitPolicy("signin-username", 100, 0),
+                new RateLimitPolicy("signup", 100, 0),
+                new RateLimitPolicy("upload", 100, 0),
+                new RateLimitPolicy("write", 2, 0),
+                new RateLimitPolicy("read", 1, 0),
+                1000, 600_000);
+
+        assertThat(send(strict, "PUT", "/api/posts/7/like", null)).isEqualTo(200);
+        assertThat(send(strict, "DELETE", "/api/posts/7/like", null)).isEqualTo(200);
+        assertThat(send(strict, "POST", "/api/uploads/abc/post", "application/json")).isEqualTo(429);
+
+        assertThat(send(strict, "POST", "/api/posts/batch", "application/json")).isEqualTo(200);
+        assertThat(send(strict, "POST", "/api/posts/batch", "application/json")).isEqualTo(429);
+    }
+
+    private static int send(RateLimitFilter target, String method, String path, String contentType)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr("10.0.0.9");
+        request.setContentType(contentType);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        target.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    private MockHttpServletResponse signin(String address, String username) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(signinRequest(address, "{\"username\":\"" + username + "\",\"password\":\"x\"}"),
+                response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest signinRequest(String address, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/signin");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
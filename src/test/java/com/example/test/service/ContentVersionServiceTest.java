@@ -0,0 +1,67 @@
+package com.example.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ContentVersionServiceTest {
+
+    private final ContentVersionService versions = new ContentVersionService(100);
+
+    @AfterEach
+    void endTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changesInsideATransactionArePublishedOnCommit() {
+        String feedBefore = versions.feedETag(null);
+        versions.recordPostVersion(1L, 3L);
+        String postBefore = versions.knownPostETag(1L, null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        versions.postChanged(1L, 4L);
+        versions.postDeleted(2L);
+
+        assertThat(versions.feedETag(null)).isEqualTo(feedBefore);
+        assertThat(versions.knownPostETag(1L, null)).isEqualTo(postBefore);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(versions.feedETag(null)).isNotEqualTo(feedBefore);
+        assertThat(versions.knownPostETag(1L, null)).isEqualTo(versions.postETag(1L, 4L, null));
+    }
+
+    @Test
+    void rolledBackChangesAreNeverPublished() {
+        String feedBefore = versions.feedETag(null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        versions.postChanged(1L, 4L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(versions.feedETag(null)).isEqualTo(feedBefore);
+        assertThat(versions.knownPostETag(1L, null)).isNull();
+    }
+
+    @Test
+    void changesOutsideATransactionArePublishedImmediately() {
+        String feedBefore = versions.feedETag(null);
+        versions.postChanged(1L, 1L);
+        assertThat(versions.feedETag(null)).isNotEqualTo(feedBefore);
+    }
+
+    @Test
+    void recordedVersionsNeverMoveBack() {
+        versions.recordPostVersion(1L, 5L);
+        // A reader that loaded the post before the last update finishes late.
+        versions.recordPostVersion(1L, 4L);
+        assertThat(versions.knownPostETag(1L, null)).isEqualTo(versions.postETag(1L, 5L, null));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DuplicateImageIndexTest {
+
+    private final DuplicateImageIndex index = new DuplicateImageIndex(null, null, null, null, "flag", 6, 200);
+
+    @Test
+    void clustersFollowChainsOfNearDuplicates() {
+        index.update(1L, null, 0x0L);
+        index.update(2L, null, 0x7L);
+        index.update(3L, null, 0x3FL); // 3 bits from post 2, 6 from post 1
+        index.update(4L, null, 0xFFFF_0000_0000_0000L);
+        index.update(5L, null, 0xFFFF_0000_0000_0001L);
+        index.update(6L, null, 0x0F0F_0F0F_0F0F_0F0FL);
+
+        assertThat(index.clusters(3, 10)).containsExactly(List.of(1L, 2L, 3L), List.of(4L, 5L));
+        assertThat(index.clusters(3, 1)).containsExactly(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void clustersReflectLaterUpdates() {
+        index.update(1L, null, 0x0L);
+        index.update(2L, null, 0x1L);
+        assertThat(index.clusters(2, 10)).containsExactly(List.of(1L, 2L));
+
+        index.update(2L, 0x1L, 0xFFFF_FFFF_0000_0000L);
+
+        assertThat(index.clusters(2, 10)).isEmpty();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.domain.ERole;
+import com.example.test.domain.Post;
+import com.example.test.domain.User;
+import com.example.test.dto.PostDto;
+import com.example.test.repository.PostRepository;
+import com.example.test.repository.UserRepository;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:likes;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        // The test flushes itself.
+        "app.likes.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class LikeServiceTest {
+
+    @Autowired
+    LikeService likeService;
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRegistry roleRegistry;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long postId;
+
+    @BeforeEach
+    void createPost() {
+        User user = new User("likes-" + System.nanoTime() % 1_000_000, "not-a-real-hash");
+        user.setRoles(Set.of(roleRegistry.get(ERole.ROLE_GUEST)));
+        user = userRepository.save(user);
+        userId = user.getId();
+        Post post = new Post();
+        post.setTitle("Likes");
+        post.setDescription("Like flush fixture");
+        post.setUser(user);
+        postId = postRepository.save(post).getId();
+    }
+
+    @Test
+    void repeatedTogglesAreWrittenOnce() {
+        likeService.like(postId, userId);
+        likeService.flush();
+        likeService.unlike(postId, userId);
+        likeService.like(postId, userId);
+        likeService.flush();
+
+        assertThat(likeRows()).isEqualTo(1);
+        assertThat(postRepository.findLikeCountById(postId)).contains(1L);
+        assertThat(likedByMe()).isTrue();
+    }
+
+    @Test
+    void likesOfPostsDeletedBeforeTheFlushAreDropped() {
+        likeService.like(postId, userId);
+        // Deleted after the like was buffered, bypassing deleteLikesForPost.
+        jdbcTemplate.update("delete from posts where id = ?", postId);
+
+        likeService.flush();
+
+        assertThat(likeRows()).isZero();
+        assertThat(likedByMe()).isFalse();
+    }
+
+    private int likeRows() {
+        return jdbcTemplate.queryForObject("select count(*) from post_likes where post_id = ?", Integer.class, postId);
+    }
+
+    private boolean likedByMe() {
+        PostDto dto = new PostDto();
+        dto.setId(postId);
+        likeService.applyLikedByMe(List.of(dto), userId);
+        return dto.isLikedByMe();
+    }
+}
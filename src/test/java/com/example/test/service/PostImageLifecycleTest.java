@@ -0,0 +1,166 @@
+package com.example.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.test.domain.ERole;
+import com.example.test.domain.Post;
+import com.example.test.domain.User;
+import com.example.test.dto.PostDto;
+import com.example.test.dto.PostPatchRequest;
+import com.example.test.repository.PostRepository;
+import com.example.test.repository.UserRepository;
+import com.example.test.storage.ImageStore;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * An edit that replaces a post's image must not touch the old image until it commits: when the
+ * version check fails at flush time, the row keeps pointing at the old image and the new one is
+ * removed again.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:post-images;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.images.duplicates.mode=off"
+})
+@ActiveProfiles("test")
+class PostImageLifecycleTest {
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.dir", () -> uploadDir.toString());
+    }
+
+    @Autowired
+    PostService postService;
+
+    @Autowired
+    PostRepository postRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RoleRegistry roleRegistry;
+
+    @Autowired
+    ImageStore imageStore;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private UserDetailsImpl author;
+
+    @BeforeEach
+    void createAuthor() {
+        String username = "images-" + System.nanoTime() % 1_000_000;
+        User user = new User(username, "not-a-real-hash");
+        user.setRoles(Set.of(roleRegistry.get(ERole.ROLE_GUEST)));
+        author = UserDetailsImpl.build(userRepository.save(user));
+    }
+
+    @Test
+    void conflictingImageReplacementKeepsTheOldImage() throws IOException {
+        PostDto created = postService.savePost(newPost(), image(Color.RED), author);
+        String oldImage = fileName(created.getImagePath());
+        assertThat(imageStore.exists(oldImage)).isTrue();
+        List<String> filesBefore = storedFiles();
+
+        PostPatchRequest patch = new PostPatchRequest();
+        patch.setTitle("Replaced");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transaction.executeWithoutResult(status -> {
+            // This transaction now holds version 0 of the post ...
+            postRepository.findById(created.getId()).orElseThrow();
+            // ... while someone else commits an edit.
+            TransactionTemplate concurrent = new TransactionTemplate(transactionManager);
+            concurrent.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            concurrent.executeWithoutResult(other ->
+                    jdbcTemplate.update("update posts set version = version + 1 where id = ?", created.getId()));
+            try {
+                postService.patchPost(created.getId(), patch, image(Color.BLUE), null);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+
+        Post post = postRepository.findById(created.getId()).orElseThrow();
+        assertThat(post.getImagePath()).isEqualTo(created.getImagePath());
+        assertThat(imageStore.exists(oldImage)).isTrue();
+        // The replacement was stored during the patch and is gone again.
+        assertThat(storedFiles()).isEqualTo(filesBefore);
+    }
+
+    @Test
+    void committedImageReplacementDeletesTheOldImage() throws IOException {
+        PostDto created = postService.savePost(newPost(), image(Color.GREEN), author);
+        String oldImage = fileName(created.getImagePath());
+
+        PostDto patched = postService.patchPost(created.getId(), new PostPatchRequest(), image(Color.YELLOW), null)
+                .orElseThrow();
+
+        assertThat(imageStore.exists(oldImage)).isFalse();
+        assertThat(imageStore.exists(fileName(patched.getImagePath()))).isTrue();
+    }
+
+    private static Post newPost() {
+        Post post = new Post();
+        post.setTitle("Image lifecycle");
+        post.setDescription("Image lifecycle fixture");
+        return post;
+    }
+
+    private static MockMultipartFile image(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, 64, 48);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("imageFile", "image.png", "image/png", out.toByteArray());
+    }
+
+    private static List<String> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir)) {
+            return files.filter(Files::isRegularFile).map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static String fileName(String imagePath) {
+        return Paths.get(imagePath).getFileName().toString();
+    }
+}
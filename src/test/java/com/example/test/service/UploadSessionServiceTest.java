@@ -0,0 +1,95 @@
+package com.example.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.test.service.UploadSessionService.UploadConflictException;
+import com.example.test.service.UploadSessionService.UploadSession;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class UploadSessionServiceTest {
+
+    private static final byte[] CONTENT = {1, 2, 3, 4};
+
+    @TempDir
+    Path uploadDir;
+
+    private final UploadSessionService service = new UploadSessionService();
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(service, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(service, "maxUploadSize", 1024L);
+        ReflectionTestUtils.setField(service, "sessionTtlMs", 60_000L);
+        ReflectionTestUtils.setField(service, "maxSessionsPerUser", 2);
+        service.init();
+    }
+
+    @Test
+    void failedCompletionCanBeRetried() throws IOException {
+        UploadSession session = uploadedSession(1L);
+
+        assertThrows(IOException.class, () -> service.complete(session, file -> {
+            throw new IOException("database is down");
+        }));
+        assertThat(service.find(session.getId(), 1L)).isPresent();
+
+        byte[] received = service.complete(session, Files::readAllBytes);
+
+        assertThat(received).isEqualTo(CONTENT);
+        assertThat(service.find(session.getId(), 1L)).isEmpty();
+        try (var partial = Files.list(uploadDir.resolve(".partial"))) {
+            assertThat(partial).isEmpty();
+        }
+    }
+
+    @Test
+    void unfinishedSessionsPerUserAreCapped() throws IOException {
+        UploadSession first = service.create(1L, "a.png", 4);
+        service.create(1L, "b.png", 4);
+
+        assertThrows(UploadConflictException.class, () -> service.create(1L, "c.png", 4));
+        service.create(2L, "c.png", 4);
+
+        service.abort(first);
+        service.create(1L, "c.png", 4);
+    }
+
+    @Test
+    void aSessionBusyWithAChunkRejectsOtherRequests() throws IOException {
+        UploadSession session = service.create(1L, "a.png", CONTENT.length);
+        AtomicReference<Throwable> concurrent = new AtomicReference<>();
+        InputStream body = new ByteArrayInputStream(CONTENT) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (concurrent.get() == null) {
+                    // Another request arrives while this chunk is still being received.
+                    CompletableFuture.runAsync(() -> concurrent.set(
+                            catchThrowable(() -> service.appendChunk(session, 0, InputStream.nullInputStream()))))
+                            .join();
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        assertThat(service.appendChunk(session, 0, body)).isEqualTo(CONTENT.length);
+        assertThat(concurrent.get()).isInstanceOf(UploadConflictException.class);
+    }
+
+    private UploadSession uploadedSession(Long ownerId) throws IOException {
+        UploadSession session = service.create(ownerId, "art.png", CONTENT.length);
+        service.appendChunk(session, 0, new ByteArrayInputStream(CONTENT));
+        return session;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.test.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PackIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void deletedEntriesKeepLaterKeysInTheProbeChainReachable() throws IOException {
+        try (PackIndex index = PackIndex.open(dir.resolve("index.dat"), 16)) {
+            // Ten keys in sixteen slots are bound to share probe chains.
+            for (int i = 0; i < 10; i++) {
+                assertThat(index.put("key-" + i, 1, i * 100L, 10 + i)).isNull();
+            }
+            for (int i = 0; i < 10; i += 2) {
+                index.delete(index.find("key-" + i));
+            }
+
+            assertThat(index.size()).isEqualTo(5);
+            for (int i = 0; i < 10; i++) {
+                int slot = index.find("key-" + i);
+                if (i % 2 == 0) {
+                    assertThat(slot).isNegative();
+                } else {
+                    assertThat(slot).isNotNegative();
+                    assertThat(index.offset(slot)).isEqualTo(i * 100L);
+                    assertThat(index.length(slot)).isEqualTo(10 + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    void overwritingReturnsTheReplacedEntry() throws IOException {
+        try (PackIndex index = PackIndex.open(dir.resolve("index.dat"), 16)) {
+            index.put("blob", 1, 0, 40);
+            assertThat(index.put("blob", 2, 64, 50)).containsExactly(1, 40);
+
+            int slot = index.find("blob");
+            assertThat(index.packId(slot)).isEqualTo(2);
+            assertThat(index.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void growingKeepsLiveEntriesAndDropsTombstones() throws IOException {
+        Path file = dir.resolve("index.dat");
+        try (PackIndex index = PackIndex.open(file, 8)) {
+            for (int i = 0; i < 5; i++) {
+                index.put("key-" + i, 1, i, 1);
+            }
+            index.delete(index.find("key-0"));
+            index.delete(index.find("key-1"));
+            // Five of eight slots are used (two as tombstones), so the sixth put grows the table.
+            index.put("key-5", 1, 5, 1);
+
+            assertThat(index.capacity()).isEqualTo(16);
+            assertThat(index.size()).isEqualTo(4);
+            assertThat(index.find("key-0")).isNegative();
+            assertThat(index.find("key-1")).isNegative();
+            for (int i = 2; i <= 5; i++) {
+                assertThat(index.offset(index.find("key-" + i))).isEqualTo(i);
+            }
+            index.force();
+            assertThat(usedSlots(file)).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void entriesSurviveReopening() throws IOException {
+        Path file = dir.resolve("index.dat");
+        try (PackIndex index = PackIndex.open(file, 8)) {
+            for (int i = 0; i < 20; i++) {
+                index.put("key-" + i, i, i * 10L, i);
+            }
+        }
+
+        try (PackIndex index = PackIndex.open(file, 8)) {
+            assertThat(index.capacity()).isEqualTo(32);
+            assertThat(index.size()).isEqualTo(20);
+            int slot = index.find("key-13");
+            assertThat(index.packId(slot)).isEqualTo(13);
+            assertThat(index.offset(slot)).isEqualTo(130L);
+        }
+    }
+
+    private static int usedSlots(Path file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getInt(12);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.test.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class PackedBlobStoreTest {
+
+    // A record is 4 + 2 + key + 4 + 60 bytes, so with one-letter keys two fit into a pack.
+    private static final int BLOB_SIZE = 60;
+    private static final long MAX_PACK_SIZE = 150;
+
+    @TempDir
+    Path dir;
+
+    private PackedBlobStore store;
+
+    @AfterEach
+    void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void compactionMovesLiveBlobsAndRemovesTheOldPack() throws IOException {
+        store = open();
+        put("a", 1);
+        put("b", 2);
+        put("c", 3);
+        assertThat(Files.exists(pack(1))).isTrue();
+        store.delete("a");
+
+        store.compact();
+
+        assertThat(Files.exists(pack(1))).isFalse();
+        assertThat(read("a")).isNull();
+        assertThat(read("b")).isEqualTo(blob(2));
+        assertThat(read("c")).isEqualTo(blob(3));
+
+        store.close();
+        store = open();
+        assertThat(read("b")).isEqualTo(blob(2));
+    }
+
+    @Test
+    void lostIndexIsRebuiltFromThePacks() throws IOException {
+        store = open();
+        put("a", 1);
+        put("b", 2);
+        put("a", 3);
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+
+        store = open();
+
+        assertThat(read("a")).isEqualTo(blob(3));
+        assertThat(read("b")).isEqualTo(blob(2));
+    }
+
+    @Test
+    void rebuildCutsOffATornHeaderAtTheEndOfTheLastPack() throws IOException {
+        store = open();
+        put("a", 1);
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+        // The crash hit while the next record's header was being written.
+        Files.write(pack(1), new byte[] {0x42, 0x4C, 0x4F}, StandardOpenOption.APPEND);
+
+        store = open();
+        assertThat(read("a")).isEqualTo(blob(1));
+        put("b", 2);
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+
+        store = open();
+        assertThat(read("a")).isEqualTo(blob(1));
+        assertThat(read("b")).isEqualTo(blob(2));
+    }
+
+    @Test
+    void aTornTailIsCutOffOnOpenEvenWithTheIndexIntact() throws IOException {
+        store = open();
+        put("a", 1);
+        store.close();
+        // The crash hit while the next record was being written; the index survived.
+        Files.write(pack(1), new byte[] {0x42, 0x4C, 0x4F, 0x42, 0x00}, StandardOpenOption.APPEND);
+
+        store = open();
+        put("b", 2);
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+
+        store = open();
+        assertThat(read("a")).isEqualTo(blob(1));
+        assertThat(read("b")).isEqualTo(blob(2));
+    }
+
+    @Test
+    void deletedBlobsStayDeletedWhenTheIndexIsRebuilt() throws IOException {
+        store = open();
+        put("a", 1);
+        put("b", 2);
+        store.delete("a");
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+
+        store = open();
+
+        assertThat(read("a")).isNull();
+        assertThat(read("b")).isEqualTo(blob(2));
+    }
+
+    @Test
+    void compactionKeepsDeleteMarkersWhileOlderPacksExist() throws IOException {
+        store = open();
+        put("a", 1);
+        put("b", 2);
+        put("c", 3);
+        store.delete("a");
+        put("d", 4);
+        store.delete("c");
+        // Pack 1 is half garbage and stays; pack 2 only holds c and the marker deleting a.
+        ReflectionTestUtils.setField(store, "compactionGarbageRatio", 0.6);
+
+        store.compact();
+
+        assertThat(Files.exists(pack(1))).isTrue();
+        assertThat(Files.exists(pack(2))).isFalse();
+        store.close();
+        Files.delete(dir.resolve("index.dat"));
+
+        store = open();
+        assertThat(read("a")).isNull();
+        assertThat(read("b")).isEqualTo(blob(2));
+        assertThat(read("c")).isNull();
+        assertThat(read("d")).isEqualTo(blob(4));
+    }
+
+    private PackedBlobStore open() throws IOException {
+        PackedBlobStore opened = new PackedBlobStore();
+        ReflectionTestUtils.setField(opened, "enabled", true);
+        ReflectionTestUtils.setField(opened, "packDir", dir.toString());
+        ReflectionTestUtils.setField(opened, "maxPackSize", MAX_PACK_SIZE);
+        ReflectionTestUtils.setField(opened, "maxBlobSize", (long) BLOB_SIZE);
+        ReflectionTestUtils.setField(opened, "indexCapacity", 16);
+        ReflectionTestUtils.setField(opened, "compactionGarbageRatio", 0.5);
+        opened.init();
+        return opened;
+    }
+
+    private void put(String key, int fill) throws IOException {
+        Path file = Files.write(dir.resolve("upload.tmp"), blob(fill));
+        store.put(key, file);
+        Files.delete(file);
+    }
+
+    private byte[] read(String key) throws IOException {
+        return store.get(key).map(PackedBlobStoreTest::bytes).orElse(null);
+    }
+
+    private Path pack(int id) {
+        return dir.resolve(String.format("pack-%06d.dat", id));
+    }
+
+    private static byte[] blob(int fill) {
+        byte[] data = new byte[BLOB_SIZE];
+        Arrays.fill(data, (byte) fill);
+        return data;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+}
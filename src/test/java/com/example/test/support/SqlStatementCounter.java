@@ -0,0 +1,58 @@
+package com.example.test.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL Hibernate sends while a test measures something, so the test can hold it to a
+ * statement budget and print the statements when it is exceeded.
+ *
+ * Hibernate creates the inspector itself from
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector, which is why the recording is
+ * static. Only statements from the thread that called start() are kept: MockMvc runs requests on the
+ * test thread, while the scheduled like flush and image hash backfill run on their own. SQL sent through
+ * JdbcTemplate or Flyway bypasses Hibernate and is not seen.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private static volatile Thread recordingThread;
+
+    @Override
+    public String inspect(String sql) {
+        if (Thread.currentThread() == recordingThread) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        statements.clear();
+        recordingThread = Thread.currentThread();
+    }
+
+    /**
+     * @return the statements recorded since start(), in the order they were sent
+     */
+    public static List<String> stop() {
+        recordingThread = null;
+        synchronized (statements) {
+            return List.copyOf(statements);
+        }
+    }
+
+    public static void assertAtMost(int budget, String what, List<String> recorded) {
+        if (recorded.size() <= budget) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append(what).append(" issued ").append(recorded.size())
+                .append(" SQL statements, the budget is ").append(budget).append(':');
+        for (int i = 0; i < recorded.size(); i++) {
+            message.append("\n  ").append(i + 1).append(". ").append(recorded.get(i));
+        }
+        throw new AssertionError(message.toString());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.test.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.service.UserDetailsImpl;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class AdaptiveConcurrencyLimitFilterTest {
+
+    // A limit of one, so a second concurrent request only gets in through the reserve.
+    private final AdaptiveConcurrencyLimitFilter filter =
+            new AdaptiveConcurrencyLimitFilter(true, 1, 1, 1, 0.9, 2.0, 50, 30_000, 1);
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatedPostWritesMayUseTheReserve() throws Exception {
+        authenticate();
+        assertThat(statusWhileBusy(request("PUT", "/api/posts/1"))).isEqualTo(200);
+        assertThat(statusWhileBusy(request("DELETE", "/api/posts/1"))).isEqualTo(200);
+    }
+
+    @Test
+    void otherRequestsAreShed() throws Exception {
+        MockHttpServletRequest unverified = request("PUT", "/api/posts/1");
+        unverified.addHeader("Authorization", "Bearer not-a-token");
+        assertThat(statusWhileBusy(unverified)).isEqualTo(503);
+
+        authenticate();
+        assertThat(statusWhileBusy(request("POST", "/api/auth/signin"))).isEqualTo(503);
+        assertThat(statusWhileBusy(request("POST", "/api/posts/batch"))).isEqualTo(503);
+        assertThat(statusWhileBusy(request("GET", "/api/posts"))).isEqualTo(503);
+    }
+
+    /**
+     * Status of the given request while another /api request holds the only regular slot.
+     */
+    private int statusWhileBusy(MockHttpServletRequest request) throws ServletException, IOException {
+        AtomicInteger status = new AtomicInteger();
+        MockFilterChain busy = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest outer, ServletResponse outerResponse)
+                    throws IOException, ServletException {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(request, response, new MockFilterChain());
+                status.set(response.getStatus());
+            }
+        };
+        filter.doFilter(request("GET", "/api/posts"), new MockHttpServletResponse(), busy);
+        return status.get();
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        return new MockHttpServletRequest(method, path);
+    }
+
+    private static void authenticate() {
+        UserDetailsImpl user = new UserDetailsImpl(1L, "writer", "hash", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.test.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.test.cache.PostFragmentCache;
+import com.example.test.dto.CustomPageDto;
+import com.example.test.dto.PostDto;
+import com.example.test.dto.UserDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * The converter replaces Jackson for feed pages, so its output has to parse to exactly what Jackson
+ * would have written for the same page.
+ */
+class PostPageHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final PostPageHttpMessageConverter converter =
+            new PostPageHttpMessageConverter(new PostFragmentCache(objectMapper, 100), objectMapper);
+
+    @Test
+    void writesWhatJacksonWrites() throws IOException {
+        PostDto first = post(1L, "First", 3L);
+        first.setLikeCount(5);
+        first.setLikedByMe(true);
+        first.setImageWidth(640);
+        first.setImageHeight(480);
+        first.setImagePlaceholder("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+        PostDto second = post(2L, "Second \"quoted\" é", 1L);
+        second.setDuplicateOfId(1L);
+
+        CustomPageDto<PostDto> page = new CustomPageDto<>(List.of(first, second), 4, 1, false, false);
+
+        assertThat(write(page)).isEqualTo(jackson(page));
+    }
+
+    @Test
+    void perRequestFieldsAreNotCachedWithThePost() throws IOException {
+        PostDto post = post(1L, "Liked", 1L);
+        write(new CustomPageDto<>(List.of(post), 1, 0, true, true));
+
+        // Same version, so the cached fragment is used, but another caller with another count.
+        PostDto forOtherCaller = post(1L, "Liked", 1L);
+        forOtherCaller.setLikeCount(12);
+        forOtherCaller.setLikedByMe(true);
+        CustomPageDto<PostDto> page = new CustomPageDto<>(List.of(forOtherCaller), 1, 0, true, true);
+
+        JsonNode written = write(page);
+        assertThat(written).isEqualTo(jackson(page));
+        assertThat(written.at("/content/0/likeCount").asLong()).isEqualTo(12);
+        assertThat(written.at("/content/0/likedByMe").asBoolean()).isTrue();
+    }
+
+    @Test
+    void postsAreRenderedAgainAfterTheirVersionChanges() throws IOException {
+        write(new CustomPageDto<>(List.of(post(1L, "Before", 1L)), 1, 0, true, true));
+
+        CustomPageDto<PostDto> edited = new CustomPageDto<>(List.of(post(1L, "After", 2L)), 1, 0, true, true);
+        JsonNode written = write(edited);
+
+        assertThat(written.at("/content/0/title").asText()).isEqualTo("After");
+        assertThat(written).isEqualTo(jackson(edited));
+    }
+
+    @Test
+    void writesAnEmptyPage() throws IOException {
+        CustomPageDto<PostDto> page = new CustomPageDto<>(List.of(), 0, 0, true, true);
+
+        assertThat(write(page)).isEqualTo(jackson(page));
+    }
+
+    private JsonNode write(CustomPageDto<PostDto> page) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, null, output);
+        return objectMapper.readTree(output.getBodyAsBytes());
+    }
+
+    private JsonNode jackson(CustomPageDto<PostDto> page) throws IOException {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(page));
+    }
+
+    private static PostDto post(Long id, String title, Long version) {
+        PostDto post = new PostDto(id, title, "Description of " + title, "/uploads/" + id + ".jpg", "#oil #sea",
+                LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000), new UserDto(10L, "author"));
+        post.setUpdatedAt(LocalDateTime.of(2024, 3, 2, 10, 0));
+        post.setVersion(version);
+        return post;
+    }
+}
@@ -0,0 +1,18 @@
+-- The schema Hibernate's ddl-auto=update created before Flyway was introduced, with its generated
+-- constraint names, plus a few rows so the migrations run against existing data.
+
+create table roles (id integer not null auto_increment, name enum ('ROLE_GUEST','ROLE_ADMIN'), primary key (id));
+create table user_roles (role_id integer not null, user_id bigint not null, primary key (role_id, user_id));
+create table users (id bigint not null auto_increment, password varchar(120) not null, username varchar(20) not null, primary key (id));
+create table posts (created_at datetime(6), id bigint not null auto_increment, user_id bigint, description varchar(1000) not null, hashtags varchar(500), image_path varchar(255), title varchar(255) not null, primary key (id));
+alter table roles add constraint UKofx66keruapi6vyqpv6f2or37 unique (name);
+alter table users add constraint UKr43af9ap4edm43mmtq01oddj6 unique (username);
+alter table posts add constraint FK5lidm6cqbc7u4xhqpxm898qme foreign key (user_id) references users (id);
+alter table user_roles add constraint FKh8ciramu9cc9q3qcqiv4ue8a6 foreign key (role_id) references roles (id);
+alter table user_roles add constraint FKhfh9dx7w3ubf1co1vdev94g3f foreign key (user_id) references users (id);
+
+insert into roles (name) values ('ROLE_GUEST'), ('ROLE_ADMIN');
+insert into users (username, password) values ('legacy', '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z8Ck0Fq0rXwXW2R1GqZKjzW.');
+insert into user_roles (user_id, role_id) values (1, 1);
+insert into posts (title, description, hashtags, image_path, created_at, user_id)
+    values ('Before migrations', 'Posted while ddl-auto managed the schema', '#legacy', '/uploads/legacy.png', '2024-05-01 12:00:00', 1);